@@ -0,0 +1,81 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.user.entity.Role;
+import com.example.demo.user.entity.RoleSet;
+import com.example.demo.user.entity.User;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@code User.PasswordHash} のハッシュ化と照合。ログインのレイテンシのほとんどはここ。
+ *
+ * <p>{@code PasswordHash.of} は非公開なので、それだけを呼ぶ {@link User#rehashPassword} で測る。 Argon2のメモリは
+ * PasswordEncoderConfigと同じ19MiB。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+  private static final String PASSWORD = "password123";
+
+  @Param({"bcrypt:10", "bcrypt:12", "argon2:2", "argon2:4"})
+  public String encoder;
+
+  private PasswordEncoder passwordEncoder;
+  private User user;
+
+  @Setup
+  public void setup() {
+    int sep = encoder.indexOf(':');
+    int cost = Integer.parseInt(encoder.substring(sep + 1));
+    passwordEncoder =
+        switch (encoder.substring(0, sep)) {
+          case "bcrypt" -> new BCryptPasswordEncoder(cost);
+          case "argon2" -> new Argon2PasswordEncoder(16, 32, 1, 19 * 1024, cost);
+          default -> throw new IllegalArgumentException(encoder);
+        };
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    user =
+        User.of(
+                "user1",
+                PASSWORD,
+                "user1@example.com",
+                now,
+                RoleSet.of(new Role(UUID.randomUUID(), "ROLE_USER", now, 0)),
+                passwordEncoder)
+            .either(
+                e -> {
+                  throw new IllegalStateException(e);
+                },
+                u -> u);
+  }
+
+  @Benchmark
+  public User hash() {
+    return user.rehashPassword(PASSWORD, passwordEncoder);
+  }
+
+  @Benchmark
+  public boolean matches() {
+    return user.getPasswordHash().matches(PASSWORD, passwordEncoder);
+  }
+}
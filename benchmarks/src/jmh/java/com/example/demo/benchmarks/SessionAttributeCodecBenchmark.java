@@ -0,0 +1,68 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.auth.infra.CompactSessionAttributeCodec;
+import com.example.demo.auth.infra.JavaSessionAttributeCodec;
+import com.example.demo.auth.infra.SessionAttributeCodec;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+/**
+ * セッションに保存するSecurityContextの変換。Javaのシリアライズと {@link CompactSessionAttributeCodec} の比較。
+ *
+ * <p>decodeはリクエストごと、encodeはログインごとに走る。エンコード後のサイズはCompactSessionAttributeCodecTestsで確かめている。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionAttributeCodecBenchmark {
+
+  @Param({"java", "compact"})
+  public String codec;
+
+  private SessionAttributeCodec target;
+  private SecurityContextImpl context;
+  private byte[] encoded;
+
+  @Setup
+  public void setup() {
+    var java = new JavaSessionAttributeCodec(getClass().getClassLoader());
+    target = codec.equals("java") ? java : new CompactSessionAttributeCodec(java);
+
+    var token =
+        UsernamePasswordAuthenticationToken.authenticated(
+            "user1",
+            null,
+            List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("READ")));
+    token.setDetails(Instant.now());
+    context = new SecurityContextImpl(token);
+    encoded = target.encode(context);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return target.encode(context);
+  }
+
+  @Benchmark
+  public Object decode() {
+    return target.decode(encoded);
+  }
+}
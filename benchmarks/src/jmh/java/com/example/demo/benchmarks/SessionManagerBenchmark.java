@@ -0,0 +1,87 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.auth.infra.Authorities;
+import com.example.demo.auth.infra.SessionManager;
+import com.example.demo.user.entity.Role;
+import com.example.demo.user.entity.RoleSet;
+import com.example.demo.user.entity.User;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * {@link SessionManager#createSession} と、その中の権限の組み立て。セッションはモック。
+ *
+ * <p>割り当て量は {@code gradle :benchmarks:jmh -Pjmh.includes=SessionManager -Pjmh.profilers=gc} の
+ * {@code gc.alloc.rate.norm} で見る。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionManagerBenchmark {
+  private SessionManager sessionManager;
+  private User user;
+
+  @Setup
+  public void setup() {
+    // createSessionはリポジトリやキャッシュを使わない
+    sessionManager = new SessionManager(null, null, null);
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    user =
+        User.unsafeOf(
+            UUID.randomUUID(),
+            "user1",
+            User.PasswordHash.unsafeOf("{noop}password123"),
+            "user1@example.com",
+            true,
+            now,
+            now,
+            RoleSet.of(
+                new Role(UUID.randomUUID(), "ROLE_USER", now, 0),
+                new Role(UUID.randomUUID(), "ROLE_ADMIN", now, 1)));
+  }
+
+  @Benchmark
+  public Set<GrantedAuthority> authorities() {
+    return Authorities.of(user);
+  }
+
+  /** 変更前の書き方。ログインのたびにロールごとに権限を作っていた */
+  @Benchmark
+  public Set<GrantedAuthority> authoritiesPerCall() {
+    return user.getRoles().roles().stream()
+        .map(
+            role ->
+                new SimpleGrantedAuthority(
+                    role.name().startsWith("ROLE_") ? role.name() : "ROLE_" + role.name()))
+        .collect(Collectors.toUnmodifiableSet());
+  }
+
+  @Benchmark
+  public MockHttpServletRequest createSession() {
+    var request = new MockHttpServletRequest();
+    sessionManager.createSession(request, user);
+    SecurityContextHolder.clearContext();
+    return request;
+  }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.benchmarks;
+
+import com.example.demo.user.entity.Role;
+import com.example.demo.user.entity.RoleSet;
+import com.example.demo.user.entity.User;
+import com.example.demo.utils.Either;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link User#of} のバリデーションと {@link Either} の分岐。
+ *
+ * <p>ハッシュのコストを除くため、エンコーダーは何もしないものを使う。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserBenchmark {
+  private static final PasswordEncoder PLAIN =
+      new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+          return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+          return rawPassword.toString().equals(encodedPassword);
+        }
+      };
+
+  private OffsetDateTime now;
+  private RoleSet roles;
+  private Either<String, User> right;
+  private Either<String, User> left;
+
+  @Setup
+  public void setup() {
+    now = OffsetDateTime.now(ZoneOffset.UTC);
+    roles = RoleSet.of(new Role(UUID.randomUUID(), "ROLE_USER", now, 0));
+    right = User.of("user1", "password123", "user1@example.com", now, roles, PLAIN);
+    left = Either.left("Invalid password");
+  }
+
+  @Benchmark
+  public Either<String, User> of() {
+    return User.of("user1", "password123", "user1@example.com", now, roles, PLAIN);
+  }
+
+  @Benchmark
+  public int switchRight() {
+    return dispatch(right);
+  }
+
+  @Benchmark
+  public int switchLeft() {
+    return dispatch(left);
+  }
+
+  @Benchmark
+  public int eitherRight() {
+    return right.either(String::length, u -> u.getUsername().length());
+  }
+
+  /** UserServiceと同じ書き方の分岐 */
+  private static int dispatch(Either<String, User> value) {
+    return switch (value) {
+      case Either.Left<String, User>(var error) -> error.length();
+      case Either.Right<String, User>(var user) -> user.getUsername().length();
+    };
+  }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.user.repository;
+
+import static com.example.demo.jooq.tables.Users.USERS;
+import static org.jooq.impl.DSL.param;
+
+import java.util.concurrent.TimeUnit;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code UserRepository.findByUsername} のjOOQ側の処理。毎回ASTを組み立ててレンダリングする場合と、{@link RenderedQuery} の比較。
+ *
+ * <p>DBの代わりに {@link MockConnection} で空の結果を返すので、SQLの組み立て・レンダリング・バインドだけを測る。 割り当て量は {@code
+ * gradle :benchmarks:jmh -Pjmh.includes=FindByUsername -Pjmh.profilers=gc} の {@code
+ * gc.alloc.rate.norm} で見る。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("NullAway.Init") // @Setupで初期化する
+public class FindByUsernameBenchmark {
+  private DSLContext dsl;
+  private RenderedQuery rendered;
+
+  @Setup
+  public void setup() {
+    var template =
+        UserRepository.selectUser(
+            DSL.using(SQLDialect.POSTGRES), USERS.USERNAME.eq(param("username", String.class)));
+    var empty = DSL.using(SQLDialect.POSTGRES).newResult(template.getSelect());
+    dsl =
+        DSL.using(
+            new MockConnection(ctx -> new MockResult[] {new MockResult(0, empty)}),
+            SQLDialect.POSTGRES);
+    rendered = RenderedQuery.of(dsl, template);
+  }
+
+  /** 変更前の書き方 */
+  @Benchmark
+  public @Nullable Record buildAndRender() {
+    return UserRepository.selectUser(dsl, USERS.USERNAME.eq("user1")).fetchOne();
+  }
+
+  @Benchmark
+  public @Nullable Record preRendered() {
+    return rendered.bind(dsl, "user1").fetchOne();
+  }
+}
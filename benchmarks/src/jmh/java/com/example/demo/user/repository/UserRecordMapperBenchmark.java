@@ -0,0 +1,109 @@
+package com.example.demo.user.repository;
+
+import static com.example.demo.jooq.tables.Users.USERS;
+import static org.jooq.impl.DSL.param;
+
+import com.example.demo.user.entity.Role;
+import com.example.demo.user.entity.User;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code UserRepository.findByUsername} の読み込み側。{@code record.into(USERS)} を経由する場合と、{@link UserRecordMapper}
+ * の比較。
+ *
+ * <p>{@code map*} は取得済みのRecordの変換だけ、{@code fetch*} は {@link MockConnection} が返す1行の読み込みから測る。 割り当て量は
+ * {@code gradle :benchmarks:jmh -Pjmh.includes=UserRecordMapper -Pjmh.profilers=gc} の {@code
+ * gc.alloc.rate.norm} で見る。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("NullAway.Init") // @Setupで初期化する
+public class UserRecordMapperBenchmark {
+  private RoleCatalog.Snapshot catalog;
+  private RecordMapper<Record, User> mapper;
+  private Record record;
+  private DSLContext dsl;
+  private RenderedQuery rendered;
+
+  @Setup
+  public void setup() {
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    var user = new Role(UUID.randomUUID(), "ROLE_USER", now, 0);
+    var admin = new Role(UUID.randomUUID(), "ROLE_ADMIN", now, 1);
+    catalog = new RoleCatalog.Snapshot(List.of(user, admin));
+    mapper = r -> UserRecordMapper.map(r, catalog);
+
+    var template =
+        UserRepository.selectUser(
+            DSL.using(SQLDialect.POSTGRES), USERS.USERNAME.eq(param("username", String.class)));
+    var ctx = DSL.using(SQLDialect.POSTGRES);
+    record = ctx.newRecord(template.getSelect().toArray(Field<?>[]::new));
+    record.fromArray(
+        UUID.randomUUID(),
+        "user1",
+        "{bcrypt}$2a$10$abcdefghijklmnopqrstuuO5PQ3A5QKmHvMmk0s3TaZ5D1mXJj5e2",
+        "user1@example.com",
+        true,
+        now,
+        now,
+        new UUID[] {user.id(), admin.id()});
+    var result = ctx.newResult(template.getSelect());
+    result.add(record);
+    dsl =
+        DSL.using(
+            new MockConnection(c -> new MockResult[] {new MockResult(1, result)}),
+            SQLDialect.POSTGRES);
+    rendered = RenderedQuery.of(dsl, template);
+  }
+
+  /** 変更前の書き方 */
+  @Benchmark
+  public User mapInto() {
+    var roleIds = record.get(UserRecordMapper.ROLE_IDS);
+    return UserRepository.fromRecord(record.into(USERS), catalog.roleSet(roleIds));
+  }
+
+  @Benchmark
+  public User mapByIndex() {
+    return UserRecordMapper.map(record, catalog);
+  }
+
+  /** 変更前の書き方 */
+  @Benchmark
+  public User fetchInto() {
+    var r = rendered.bind(dsl, "user1").fetchSingle();
+    var roleIds = r.get(UserRecordMapper.ROLE_IDS);
+    return UserRepository.fromRecord(r.into(USERS), catalog.roleSet(roleIds));
+  }
+
+  @Benchmark
+  public User fetchByIndex() {
+    return rendered.bind(dsl, "user1").fetchSingle(mapper);
+  }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.user.repository;
+
+import com.example.demo.jooq.tables.records.UsersRecord;
+import com.example.demo.user.entity.Role;
+import com.example.demo.user.entity.RoleSet;
+import com.example.demo.user.entity.User;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** {@code UserRepository.fromRecord} のレコードからエンティティへの変換。パッケージプライベートなので同じパッケージに置く */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("NullAway.Init") // @Setupで初期化する
+public class UserRepositoryBenchmark {
+  private UsersRecord userRecord;
+  private RoleSet roles;
+
+  @Setup
+  public void setup() {
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    userRecord =
+        new UsersRecord(
+            UUID.randomUUID(),
+            "user1",
+            "{bcrypt}$2a$10$abcdefghijklmnopqrstuuO5PQ3A5QKmHvMmk0s3TaZ5D1mXJj5e2",
+            "user1@example.com",
+            true,
+            now,
+            now);
+    roles =
+        RoleSet.of(
+            new Role(UUID.randomUUID(), "ROLE_USER", now, 0),
+            new Role(UUID.randomUUID(), "ROLE_ADMIN", now, 1));
+  }
+
+  @Benchmark
+  public User fromRecord() {
+    return UserRepository.fromRecord(userRecord, roles);
+  }
+}
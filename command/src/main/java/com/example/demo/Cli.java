@@ -0,0 +1,32 @@
+package com.example.demo;
+
+import com.example.demo.command.RootCommand;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import picocli.CommandLine;
+import picocli.CommandLine.IFactory;
+
+@SpringBootApplication
+@RequiredArgsConstructor
+public class Cli implements CommandLineRunner, ExitCodeGenerator {
+  private final IFactory factory;
+  private final RootCommand rootCommand;
+  private int exitCode;
+
+  public static void main(String[] args) {
+    System.exit(SpringApplication.exit(SpringApplication.run(Cli.class, args)));
+  }
+
+  @Override
+  public void run(String... args) {
+    exitCode = new CommandLine(rootCommand, factory).execute(args);
+  }
+
+  @Override
+  public int getExitCode() {
+    return exitCode;
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.command;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.example.demo.user.service.UserExportService;
+import com.example.demo.user.service.UserFileFormat;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.Nullable;
+import org.springframework.stereotype.Component;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/** ユーザーとロールをCSVまたはJSONLで書き出す。出力先が {@code -} なら標準出力 */
+@Component
+@Command(name = "export-users", description = "Export users and roles as CSV or JSONL")
+@RequiredArgsConstructor
+public class ExportUsersCommand implements Callable<Integer> {
+  private final UserExportService userExportService;
+
+  @Parameters(index = "0", description = "Output file (.csv or .jsonl), or - for stdout")
+  private String output = "-";
+
+  @Option(names = "--format", description = "csv or jsonl (default: from the file extension)")
+  private @Nullable String format;
+
+  @Option(names = "--after", description = "Export users whose id is greater than this")
+  private @Nullable UUID after;
+
+  @Option(names = "--limit", description = "Maximum number of users (default: all)")
+  private long limit = 0;
+
+  @Override
+  public Integer call() throws IOException {
+    var toStdout = output.equals("-");
+    var outputFormat =
+        UserFileFormat.of(format != null ? format : toStdout ? "jsonl" : extension(output));
+
+    UserExportService.ExportResult result;
+    if (toStdout) {
+      var writer = new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+      result = userExportService.export(writer, outputFormat, after, limit);
+    } else {
+      try (var writer = Files.newBufferedWriter(Path.of(output), UTF_8)) {
+        result = userExportService.export(writer, outputFormat, after, limit);
+      }
+    }
+    // 標準出力はデータなので、件数は標準エラーに出す
+    System.err.printf("Exported %d user(s), last id %s%n", result.exported(), result.lastId());
+    return 0;
+  }
+
+  private static String extension(String path) {
+    int dot = path.lastIndexOf('.');
+    return dot < 0 ? "" : path.substring(dot + 1).toLowerCase(Locale.ROOT);
+  }
+}
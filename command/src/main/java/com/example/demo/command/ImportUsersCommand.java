@@ -0,0 +1,98 @@
+package com.example.demo.command;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.example.demo.user.service.UserFileFormat;
+import com.example.demo.user.service.UserImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.Nullable;
+import org.springframework.stereotype.Component;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * CSVまたはJSONLからユーザーを一括で作る。
+ *
+ * <p>同じ {@code --job} で再実行すると、前回コミットした行の次から続ける。取り込めなかった行は {@code --errors} にJSONLで書く。
+ */
+@Component
+@Command(name = "import-users", description = "Create users in bulk from CSV or JSONL")
+@RequiredArgsConstructor
+public class ImportUsersCommand implements Callable<Integer> {
+  private final UserImportService userImportService;
+  private final ObjectMapper objectMapper;
+
+  @Parameters(index = "0", description = "Input file (.csv or .jsonl)")
+  private Path input = Path.of("");
+
+  @Option(names = "--format", description = "csv or jsonl (default: from the file extension)")
+  private @Nullable String format;
+
+  @Option(names = "--job", description = "Checkpoint name to resume from (default: the file name)")
+  private @Nullable String job;
+
+  @Option(names = "--no-checkpoint", description = "Do not record or resume from a checkpoint")
+  private boolean noCheckpoint;
+
+  @Option(names = "--errors", description = "Error report (JSONL, default: <input>.errors.jsonl)")
+  private @Nullable Path errors;
+
+  @Override
+  public Integer call() throws IOException {
+    var inputFormat = UserFileFormat.of(format != null ? format : extension(input));
+    var jobName = noCheckpoint ? null : job != null ? job : input.getFileName().toString();
+    var errorsPath = errors != null ? errors : Path.of(input + ".errors.jsonl");
+
+    // 再開したときは前回のレポートに続けて書く (コミット済みの行のエラーは二度出ない)
+    var reportOptions =
+        jobName != null
+            ? new OpenOption[] {StandardOpenOption.CREATE, StandardOpenOption.APPEND}
+            : new OpenOption[0];
+
+    UserImportService.ImportResult result;
+    try (var reader = Files.newBufferedReader(input, UTF_8);
+        var report = new PrintWriter(Files.newBufferedWriter(errorsPath, UTF_8, reportOptions))) {
+      result =
+          userImportService.importUsers(
+              reader,
+              inputFormat,
+              jobName,
+              error -> {
+                try {
+                  report.println(objectMapper.writeValueAsString(error));
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              });
+    }
+
+    if (result.resumedFrom() > 0) {
+      System.out.printf("Resumed after line %d%n", result.resumedFrom());
+    }
+    System.out.printf(
+        "Imported %d user(s), %d failed, up to line %d%n",
+        result.imported(), result.failed(), result.lastLine());
+    if (result.failed() > 0) {
+      System.out.printf("Errors written to %s%n", errorsPath);
+      return 1;
+    }
+    return 0;
+  }
+
+  private static String extension(Path path) {
+    var name = path.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.command;
+
+import com.example.demo.auth.infra.SessionManager;
+import java.util.concurrent.Callable;
+import lombok.RequiredArgsConstructor;
+import org.jspecify.annotations.Nullable;
+import org.springframework.stereotype.Component;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/** ユーザーを全ての端末からログアウトさせる */
+@Component
+@Command(name = "revoke-sessions", description = "Log a user out everywhere")
+@RequiredArgsConstructor
+public class RevokeSessionsCommand implements Callable<Integer> {
+  private final SessionManager sessionManager;
+
+  @Parameters(index = "0", description = "Username")
+  private String username = "";
+
+  @Option(names = "--keep", description = "Session id to keep")
+  private @Nullable String keepSessionId;
+
+  @Override
+  public Integer call() {
+    int revoked = sessionManager.invalidateAllSessions(username, keepSessionId);
+    System.out.printf("Revoked %d session(s) of %s%n", revoked, username);
+    return 0;
+  }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.command;
+
+import org.springframework.stereotype.Component;
+import picocli.CommandLine.Command;
+
+@Component
+@Command(
+    name = "demo",
+    mixinStandardHelpOptions = true,
+    subcommands = {RevokeSessionsCommand.class, ImportUsersCommand.class, ExportUsersCommand.class})
+public class RootCommand {}
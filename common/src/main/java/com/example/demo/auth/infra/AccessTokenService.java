@@ -0,0 +1,178 @@
+package com.example.demo.auth.infra;
+
+import com.example.demo.user.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.uuid.Generators;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * HS256で署名したJWT形式のアクセストークンを発行・検証する。
+ *
+ * <p>検証は署名・有効期限・{@link RevokedTokenChecker} だけで完結し、DBにはアクセスしない。 失効は {@code jti} を {@code
+ * revoked_tokens} に登録するか、ユーザーごとの発行時刻の下限 ({@code user_token_cutoffs}) を上げて行う。
+ */
+@Component
+public class AccessTokenService {
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  // 他のalgを受け付けないよう、ヘッダーは固定値と比較する
+  private static final String HEADER =
+      ENCODER.encodeToString(
+          "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+  public record AccessToken(
+      String jti, String username, List<String> authorities, Instant issuedAt, Instant expiresAt) {}
+
+  public record IssuedToken(String value, AccessToken token) {}
+
+  public sealed interface VerifyResult
+      permits VerifyResult.Valid, VerifyResult.Invalid, VerifyResult.Revoked {
+    record Valid(AccessToken token) implements VerifyResult {}
+
+    record Invalid(String reason) implements VerifyResult {}
+
+    record Revoked() implements VerifyResult {}
+  }
+
+  private final RevokedTokenChecker revokedTokenChecker;
+  private final ObjectMapper objectMapper;
+  private final Duration ttl;
+  private final SecretKeySpec secret;
+
+  public AccessTokenService(
+      RevokedTokenChecker revokedTokenChecker,
+      ObjectMapper objectMapper,
+      @Value("${auth.mode:session}") AuthMode authMode,
+      @Value("${auth.token.ttl:15m}") Duration ttl,
+      @Value("${jwt.secret:}") String secret) {
+    var key = secret.getBytes(StandardCharsets.UTF_8);
+    if (authMode == AuthMode.TOKEN && key.length < 32) {
+      throw new IllegalStateException("jwt.secret must be at least 256 bits in token mode");
+    }
+    this.revokedTokenChecker = revokedTokenChecker;
+    this.objectMapper = objectMapper;
+    this.ttl = ttl;
+    // セッションモードでは使わないが、Macの初期化が通るようにダミーの鍵を入れておく
+    this.secret = new SecretKeySpec(key.length > 0 ? key : new byte[32], HMAC_ALGORITHM);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Issue
+
+  public IssuedToken issue(User user) {
+    var now = revokedTokenChecker.issuedAtFor(user.getUsername(), Instant.now());
+    var token =
+        new AccessToken(
+            Generators.timeBasedEpochRandomGenerator().generate().toString(),
+            user.getUsername(),
+            user.getRoles().authorities(),
+            now,
+            now.plus(ttl));
+
+    var claims = new LinkedHashMap<String, Object>();
+    claims.put("jti", token.jti());
+    claims.put("sub", token.username());
+    claims.put("roles", token.authorities());
+    claims.put("iat", token.issuedAt().getEpochSecond());
+    claims.put("exp", token.expiresAt().getEpochSecond());
+    String payload;
+    try {
+      payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+
+    var signingInput = HEADER + "." + payload;
+    return new IssuedToken(signingInput + "." + ENCODER.encodeToString(sign(signingInput)), token);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Verify
+
+  public VerifyResult verify(String value) {
+    int first = value.indexOf('.');
+    int second = value.indexOf('.', first + 1);
+    if (first < 0 || second < 0 || value.indexOf('.', second + 1) >= 0) {
+      return new VerifyResult.Invalid("Malformed token");
+    }
+    if (!HEADER.equals(value.substring(0, first))) {
+      return new VerifyResult.Invalid("Unsupported header");
+    }
+
+    byte[] signature;
+    try {
+      signature = DECODER.decode(value.substring(second + 1));
+    } catch (IllegalArgumentException e) {
+      return new VerifyResult.Invalid("Malformed signature");
+    }
+    if (!MessageDigest.isEqual(signature, sign(value.substring(0, second)))) {
+      return new VerifyResult.Invalid("Bad signature");
+    }
+
+    AccessToken token;
+    try {
+      var claims = objectMapper.readTree(DECODER.decode(value.substring(first + 1, second)));
+      var authorities = new ArrayList<String>();
+      claims.path("roles").forEach(role -> authorities.add(role.asText()));
+      token =
+          new AccessToken(
+              claims.path("jti").asText(),
+              claims.path("sub").asText(),
+              List.copyOf(authorities),
+              Instant.ofEpochSecond(claims.path("iat").asLong()),
+              Instant.ofEpochSecond(claims.path("exp").asLong()));
+    } catch (IOException | IllegalArgumentException e) {
+      return new VerifyResult.Invalid("Malformed claims");
+    }
+
+    if (!Instant.now().isBefore(token.expiresAt())) {
+      return new VerifyResult.Invalid("Expired");
+    }
+    if (revokedTokenChecker.isRevoked(token.jti())
+        || revokedTokenChecker.isIssuedBeforeCutoff(token.username(), token.issuedAt())) {
+      return new VerifyResult.Revoked();
+    }
+    return new VerifyResult.Valid(token);
+  }
+
+  /** 現在のリクエストがアクセストークンで認証されていれば、そのトークン */
+  public static Optional<AccessToken> currentToken() {
+    var authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null && authentication.getDetails() instanceof AccessToken token) {
+      return Optional.of(token);
+    }
+    return Optional.empty();
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private byte[] sign(String signingInput) {
+    try {
+      // Macはスレッドセーフではないので毎回作る
+      var mac = Mac.getInstance(HMAC_ALGORITHM);
+      mac.init(secret);
+      return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.auth.infra;
+
+/** 認証状態の持ち方。{@code auth.mode} で切り替える */
+public enum AuthMode {
+  /** Spring Session JDBCのセッション (Cookie) */
+  SESSION,
+  /** 署名付きの短命なアクセストークン (Authorization: Bearer)。リクエストごとのDBアクセスなし */
+  TOKEN,
+}
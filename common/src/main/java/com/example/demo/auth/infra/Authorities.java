@@ -0,0 +1,45 @@
+package com.example.demo.auth.infra;
+
+import com.example.demo.user.entity.RoleSet;
+import com.example.demo.user.entity.User;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * ユーザーのロールからSpring Securityの権限を作る。
+ *
+ * <p>ロールの組み合わせは数通りしかないので、{@link RoleSet} ごとに作った不変のSetを使い回す。ログインのたびには割り当てない。
+ */
+public final class Authorities {
+  /** ロールの名前を変え続けない限り増えないが、念のため上限を超えたら作り直す */
+  private static final int MAX_CACHED = 1024;
+
+  private static final Map<RoleSet, Set<GrantedAuthority>> CACHE = new ConcurrentHashMap<>();
+
+  private Authorities() {}
+
+  public static Set<GrantedAuthority> of(User user) {
+    return of(user.getRoles());
+  }
+
+  public static Set<GrantedAuthority> of(RoleSet roles) {
+    var cached = CACHE.get(roles);
+    if (cached != null) {
+      return cached;
+    }
+    if (CACHE.size() >= MAX_CACHED) {
+      CACHE.clear();
+    }
+    return CACHE.computeIfAbsent(roles, Authorities::create);
+  }
+
+  private static Set<GrantedAuthority> create(RoleSet roles) {
+    return roles.authorities().stream()
+        .map(SimpleGrantedAuthority::new)
+        .collect(Collectors.toUnmodifiableSet());
+  }
+}
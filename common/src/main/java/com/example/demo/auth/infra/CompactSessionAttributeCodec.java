@@ -0,0 +1,208 @@
+package com.example.demo.auth.infra;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jspecify.annotations.Nullable;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+/**
+ * {@link SessionManager#createSession} が保存する {@link SecurityContext} を小さなバイナリにする。それ以外は {@code
+ * fallback} に任せる。
+ *
+ * <p>形式: {@code 0x01}, ユーザー名, 発行日時 (epoch ms), 権限の数, 権限名。 長さと個数は可変長整数。
+ * Javaのシリアライズは必ず {@code 0xAC} で始まるので、先頭1バイトで区別できる。
+ *
+ * <p>権限は名前で保存する。ロールは {@code roles} テーブルにあり、どのロールがあるかをここで決め打ちすると
+ * ロールの追加や改名と食い違うため。読み込みでは同じ名前の {@link GrantedAuthority} を使い回す。
+ */
+public class CompactSessionAttributeCodec implements SessionAttributeCodec {
+  private static final byte SECURITY_CONTEXT = 0x01;
+  private static final long NO_ISSUED_AT = Long.MIN_VALUE;
+
+  /** ロールの数しか増えないが、念のため上限を超えたら作り直す */
+  private static final int MAX_INTERNED = 1024;
+
+  private final SessionAttributeCodec fallback;
+  private final Map<String, GrantedAuthority> interned = new ConcurrentHashMap<>();
+
+  public CompactSessionAttributeCodec(SessionAttributeCodec fallback) {
+    this.fallback = fallback;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Encode
+
+  @Override
+  public byte[] encode(Object value) {
+    var token = compactable(value);
+    if (token == null) {
+      return fallback.encode(value);
+    }
+
+    var username = ((String) token.getPrincipal()).getBytes(StandardCharsets.UTF_8);
+    long issuedAt =
+        token.getDetails() instanceof Instant instant ? instant.toEpochMilli() : NO_ISSUED_AT;
+    var authorities = token.getAuthorities();
+
+    var out = new Writer(32 + username.length + authorities.size() * 16);
+    out.writeByte(SECURITY_CONTEXT);
+    out.writeBytes(username);
+    out.writeLong(issuedAt);
+    out.writeVarLong(authorities.size());
+    for (var authority : authorities) {
+      out.writeBytes(authority.getAuthority().getBytes(StandardCharsets.UTF_8));
+    }
+    return out.toByteArray();
+  }
+
+  /** このコーデックの形式で表せるなら、そのトークン */
+  private static @Nullable UsernamePasswordAuthenticationToken compactable(Object value) {
+    if (!(value instanceof SecurityContextImpl context)
+        || !(context.getAuthentication() instanceof UsernamePasswordAuthenticationToken token)
+        || token.getClass() != UsernamePasswordAuthenticationToken.class
+        || !token.isAuthenticated()
+        || !(token.getPrincipal() instanceof String)
+        || token.getCredentials() != null
+        || !(token.getDetails() == null || token.getDetails() instanceof Instant)) {
+      return null;
+    }
+    for (var authority : token.getAuthorities()) {
+      if (authority.getClass() != SimpleGrantedAuthority.class) {
+        return null;
+      }
+    }
+    return token;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Decode
+
+  @Override
+  public Object decode(byte[] bytes) {
+    if (bytes.length == 0 || bytes[0] != SECURITY_CONTEXT) {
+      return fallback.decode(bytes);
+    }
+
+    var in = new Reader(bytes, 1);
+    var username = in.readString();
+    long issuedAt = in.readLong();
+
+    int count = (int) in.readVarLong();
+    var authorities = new ArrayList<GrantedAuthority>(count);
+    for (int i = 0; i < count; i++) {
+      authorities.add(authority(in.readString()));
+    }
+
+    var token = UsernamePasswordAuthenticationToken.authenticated(username, null, authorities);
+    if (issuedAt != NO_ISSUED_AT) {
+      token.setDetails(Instant.ofEpochMilli(issuedAt));
+    }
+    return new SecurityContextImpl(token);
+  }
+
+  private GrantedAuthority authority(String name) {
+    var cached = interned.get(name);
+    if (cached != null) {
+      return cached;
+    }
+    if (interned.size() >= MAX_INTERNED) {
+      interned.clear();
+    }
+    return interned.computeIfAbsent(name, SimpleGrantedAuthority::new);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private static final class Writer {
+    private byte[] buf;
+    private int pos = 0;
+
+    Writer(int initialCapacity) {
+      this.buf = new byte[initialCapacity];
+    }
+
+    void writeByte(int b) {
+      ensure(1);
+      buf[pos++] = (byte) b;
+    }
+
+    void writeLong(long v) {
+      ensure(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buf[pos++] = (byte) (v >>> shift);
+      }
+    }
+
+    void writeVarLong(long v) {
+      ensure(10);
+      while ((v & ~0x7FL) != 0) {
+        buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+        v >>>= 7;
+      }
+      buf[pos++] = (byte) v;
+    }
+
+    void writeBytes(byte[] bytes) {
+      writeVarLong(bytes.length);
+      ensure(bytes.length);
+      System.arraycopy(bytes, 0, buf, pos, bytes.length);
+      pos += bytes.length;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buf, pos);
+    }
+
+    private void ensure(int n) {
+      if (pos + n > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+      }
+    }
+  }
+
+  private static final class Reader {
+    private final byte[] buf;
+    private int pos;
+
+    Reader(byte[] buf, int pos) {
+      this.buf = buf;
+      this.pos = pos;
+    }
+
+    long readLong() {
+      long v = 0;
+      for (int i = 0; i < 8; i++) {
+        v = (v << 8) | (buf[pos++] & 0xFF);
+      }
+      return v;
+    }
+
+    long readVarLong() {
+      long v = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte b = buf[pos++];
+        v |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return v;
+        }
+      }
+      throw new IllegalArgumentException("Malformed varint");
+    }
+
+    String readString() {
+      int length = (int) readVarLong();
+      var s = new String(buf, pos, length, StandardCharsets.UTF_8);
+      pos += length;
+      return s;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.auth.infra;
+
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+
+/** Javaのシリアライズ。Spring Session JDBCのデフォルトと同じ形式 */
+public class JavaSessionAttributeCodec implements SessionAttributeCodec {
+  private final SerializingConverter serializer = new SerializingConverter();
+  private final DeserializingConverter deserializer;
+
+  public JavaSessionAttributeCodec(ClassLoader classLoader) {
+    this.deserializer = new DeserializingConverter(classLoader);
+  }
+
+  @Override
+  public byte[] encode(Object value) {
+    return serializer.convert(value);
+  }
+
+  @Override
+  public Object decode(byte[] bytes) {
+    return deserializer.convert(bytes);
+  }
+}
@@ -0,0 +1,269 @@
+package com.example.demo.auth.infra;
+
+import com.example.demo.auth.repository.RevokedTokenRepository;
+import com.example.demo.crosscutting.InvalidationBus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 失効済みトークン (JTI) をメモリ上で判定する。リクエストごとにDBを引かないためのもの。
+ *
+ * <p>起動時に保持期間内の {@code revoked_tokens} を全件読み込み、以降は {@code revoked_at} で差分をポーリングする。
+ * 判定はハッシュセットを1回引くだけ。 このノードで失効させたものは {@link InvalidationBus} で他ノードにも即時に伝える。
+ *
+ * <p>{@code revoked_at} はトランザクションの開始時刻なので、長いトランザクションの行は後から古い時刻でコミットされる。
+ * そのためポーリングは毎回「前回ポーリングを始めたときのDBの時刻 - {@link #POLL_OVERLAP}」から読む。
+ * これより長いトランザクションの行は、次の全件読み込みで拾う。
+ *
+ * <p>パスワード変更などでユーザーのトークンをまとめて失効させるときは、JTIではなくユーザーごとの発行時刻の下限 ({@code
+ * user_token_cutoffs}) を使う。こちらも同じようにメモリに持ち、{@code updated_at} でポーリングし、トピック {@value
+ * #CUTOFF_TOPIC} で他ノードに伝える。
+ */
+@Slf4j
+@Component
+public class RevokedTokenChecker {
+  public static final String TOPIC = "revoked-token";
+
+  /** キーはユーザー名。受け取ったノードはDBから下限を読み直す */
+  public static final String CUTOFF_TOPIC = "token-cutoff";
+
+  private static final int MIN_CAPACITY = 1024;
+
+  /** 後からコミットされた行を取りこぼさないよう、ポーリングの起点を戻す幅 */
+  static final Duration POLL_OVERLAP = Duration.ofSeconds(10);
+
+  // 1エントリあたりのセットのおおよそのサイズ (Node + String + byte[])
+  private static final long ESTIMATED_BYTES_PER_ENTRY = 120;
+
+  private final RevokedTokenRepository revokedTokenRepository;
+  private final InvalidationBus invalidationBus;
+  private final Duration retention;
+  private final Duration fullReloadInterval;
+
+  /** 同期処理はDBを待つので、仮想スレッドでキャリアを占有しないようsynchronizedではなくロックを使う */
+  private final ReentrantLock syncLock = new ReentrantLock();
+
+  private volatile Set<String> revoked = ConcurrentHashMap.newKeySet(MIN_CAPACITY);
+
+  /** ユーザー名ごとの、トークンの発行時刻の下限 */
+  private volatile Map<String, Instant> cutoffs = new ConcurrentHashMap<>();
+
+  /** 次のポーリングで読み始める {@code revoked_at}。DBの時計で測る */
+  private volatile @Nullable OffsetDateTime pollFrom;
+
+  private volatile Instant lastSyncedAt = Instant.EPOCH;
+  private volatile Instant lastFullLoadAt = Instant.EPOCH;
+
+  public RevokedTokenChecker(
+      RevokedTokenRepository revokedTokenRepository,
+      InvalidationBus invalidationBus,
+      MeterRegistry meterRegistry,
+      @Value("${auth.revoked-tokens.retention:1h}") Duration retention,
+      @Value("${auth.revoked-tokens.full-reload-interval:1h}") Duration fullReloadInterval,
+      @Value("${auth.token.ttl:15m}") Duration tokenTtl) {
+    // 保持期間が短いと、まだ有効なトークンの失効を忘れてしまう
+    if (retention.compareTo(tokenTtl) < 0) {
+      throw new IllegalStateException(
+          "auth.revoked-tokens.retention must be at least auth.token.ttl");
+    }
+    this.revokedTokenRepository = revokedTokenRepository;
+    this.invalidationBus = invalidationBus;
+    this.retention = retention;
+    this.fullReloadInterval = fullReloadInterval;
+
+    Gauge.builder("auth.revoked_tokens.count", this, c -> c.revoked.size()).register(meterRegistry);
+    Gauge.builder("auth.revoked_tokens.cutoffs", this, c -> c.cutoffs.size())
+        .register(meterRegistry);
+    Gauge.builder("auth.revoked_tokens.memory", this, RevokedTokenChecker::estimatedBytes)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    TimeGauge.builder(
+            "auth.revoked_tokens.lag",
+            this,
+            TimeUnit.MILLISECONDS,
+            c -> Duration.between(c.lastSyncedAt, Instant.now()).toMillis())
+        .description("Time since the last successful sync with revoked_tokens")
+        .register(meterRegistry);
+
+    invalidationBus.subscribe(
+        TOPIC,
+        new InvalidationBus.Listener() {
+          @Override
+          public void invalidate(Set<String> jtis) {
+            jtis.forEach(RevokedTokenChecker.this::addLocal);
+          }
+
+          @Override
+          public void invalidateAll() {
+            poll();
+          }
+        });
+    invalidationBus.subscribe(
+        CUTOFF_TOPIC,
+        new InvalidationBus.Listener() {
+          @Override
+          public void invalidate(Set<String> usernames) {
+            revokedTokenRepository
+                .findCutoffs(usernames)
+                .forEach(RevokedTokenChecker.this::addCutoffLocal);
+          }
+
+          @Override
+          public void invalidateAll() {
+            poll();
+          }
+        });
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // API
+
+  public boolean isRevoked(String jti) {
+    return revoked.contains(jti);
+  }
+
+  /** {@code username} のトークンのうち、{@code issuedAt} に発行したものが一括で失効させられていればtrue */
+  public boolean isIssuedBeforeCutoff(String username, Instant issuedAt) {
+    var cutoff = cutoffs.get(username);
+    return cutoff != null && issuedAt.isBefore(cutoff);
+  }
+
+  /**
+   * {@code username} に今発行するトークンの発行時刻。一括で失効させた直後 (下限がまだ先) なら下限に合わせ、発行したトークンがすぐ失効しないようにする。
+   */
+  public Instant issuedAtFor(String username, Instant now) {
+    var cutoff = cutoffs.get(username);
+    return cutoff != null && now.isBefore(cutoff) ? cutoff : now;
+  }
+
+  /**
+   * {@code username} のトークンのうち、{@code cutoff} より前に発行したものを全て失効させる。反映のされ方は {@link #revoke} と同じ。
+   *
+   * <p>トークンの発行時刻 ({@code iat}) は秒単位なので、下限は秒に切り上げる。{@code cutoff} と同じ秒に発行されたトークンも失効する。
+   * 直後のログインで発行するトークンは {@link #issuedAtFor} で下限に合わせる。
+   */
+  public void revokeIssuedBefore(String username, Instant cutoff) {
+    var seconds = cutoff.truncatedTo(ChronoUnit.SECONDS);
+    if (seconds.isBefore(cutoff)) {
+      seconds = seconds.plusSeconds(1);
+    }
+    var notBefore = OffsetDateTime.ofInstant(seconds, ZoneOffset.UTC);
+    revokedTokenRepository.upsertCutoff(username, notBefore);
+    addCutoffLocal(new RevokedTokenRepository.TokenCutoff(username, notBefore));
+    invalidationBus.publish(CUTOFF_TOPIC, username);
+  }
+
+  /** トークンを失効させる。このノードには即時、他ノードにはNOTIFYで反映される */
+  public void revoke(String jti, @Nullable String reason, @Nullable UUID revokedByUserId) {
+    revokedTokenRepository.insert(jti, reason, revokedByUserId);
+    addLocal(jti);
+    invalidationBus.publish(TOPIC, jti);
+  }
+
+  /** メモリ使用量の概算 */
+  public long estimatedBytes() {
+    return (revoked.size() + cutoffs.size()) * ESTIMATED_BYTES_PER_ENTRY;
+  }
+
+  /** 最後にDBと同期できてからの時間 */
+  public Duration lag() {
+    return Duration.between(lastSyncedAt, Instant.now());
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Sync
+
+  @PostConstruct
+  public void fullReload() {
+    syncLock.lock();
+    try {
+      fullReloadLocked();
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  private void fullReloadLocked() {
+    var now = Instant.now();
+    var dbNow = revokedTokenRepository.currentTime();
+    var rows = revokedTokenRepository.findRevokedSince(dbNow.minus(retention));
+
+    Set<String> next = ConcurrentHashMap.newKeySet(Math.max(MIN_CAPACITY, rows.size() * 2));
+    for (var row : rows) {
+      next.add(row.jti());
+    }
+    // 保持期間より前の下限は、それより前に発行したトークンが全て有効期限切れなので要らない
+    var nextCutoffs = new ConcurrentHashMap<String, Instant>();
+    for (var c : revokedTokenRepository.findCutoffsUpdatedSince(dbNow.minus(retention))) {
+      nextCutoffs.merge(c.username(), c.notBefore().toInstant(), RevokedTokenChecker::later);
+    }
+    revoked = next;
+    cutoffs = nextCutoffs;
+    pollFrom = dbNow.minus(POLL_OVERLAP);
+    lastSyncedAt = now;
+    lastFullLoadAt = now;
+    log.info("Revoked tokens loaded: count={}, bytes={}", next.size(), estimatedBytes());
+  }
+
+  @Scheduled(fixedDelayString = "${auth.revoked-tokens.poll-interval:5s}")
+  public void poll() {
+    syncLock.lock();
+    try {
+      var now = Instant.now();
+      var from = pollFrom;
+      if (from == null || Duration.between(lastFullLoadAt, now).compareTo(fullReloadInterval) > 0) {
+        // 保持期間を過ぎたものを捨てるために作り直す
+        fullReloadLocked();
+        return;
+      }
+
+      // 行が返ってこなくても起点を進める。読む範囲は常に間隔 + POLL_OVERLAP程度
+      var dbNow = revokedTokenRepository.currentTime();
+      for (var row : revokedTokenRepository.findRevokedSince(from)) {
+        addLocal(row.jti());
+      }
+      for (var c : revokedTokenRepository.findCutoffsUpdatedSince(from)) {
+        addCutoffLocal(c);
+      }
+      pollFrom = dbNow.minus(POLL_OVERLAP);
+      lastSyncedAt = now;
+    } catch (RuntimeException e) {
+      log.warn("Failed to sync revoked tokens", e);
+    } finally {
+      syncLock.unlock();
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private void addLocal(String jti) {
+    revoked.add(jti);
+  }
+
+  private void addCutoffLocal(RevokedTokenRepository.TokenCutoff cutoff) {
+    cutoffs.merge(cutoff.username(), cutoff.notBefore().toInstant(), RevokedTokenChecker::later);
+  }
+
+  private static Instant later(Instant a, Instant b) {
+    return a.isAfter(b) ? a : b;
+  }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.auth.infra;
+
+/**
+ * セッション属性と {@code SPRING_SESSION_ATTRIBUTES.ATTRIBUTE_BYTES} の変換。
+ *
+ * @see SessionCodecConfig
+ */
+public interface SessionAttributeCodec {
+  byte[] encode(Object value);
+
+  Object decode(byte[] bytes);
+}
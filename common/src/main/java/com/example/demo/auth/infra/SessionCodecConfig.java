@@ -0,0 +1,34 @@
+package com.example.demo.auth.infra;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+
+/**
+ * Spring Session JDBCがセッション属性の変換に使う {@code springSessionConversionService} を定義する。
+ *
+ * <p>{@code session.codec.compact=false} にするとJavaのシリアライズで書くようになる。 どちらの設定でも読み込みは両方の形式を受け付けるので、
+ * 設定を切り替えても既存のセッションはそのまま読める。
+ */
+@Configuration
+public class SessionCodecConfig {
+
+  @Bean
+  public ConversionService springSessionConversionService(
+      ApplicationContext context, @Value("${session.codec.compact:true}") boolean compact) {
+    var classLoader = context.getClassLoader();
+    var javaCodec =
+        new JavaSessionAttributeCodec(
+            classLoader != null ? classLoader : SessionCodecConfig.class.getClassLoader());
+    var compactCodec = new CompactSessionAttributeCodec(javaCodec);
+    SessionAttributeCodec encoder = compact ? compactCodec : javaCodec;
+
+    var conversionService = new GenericConversionService();
+    conversionService.addConverter(Object.class, byte[].class, encoder::encode);
+    conversionService.addConverter(byte[].class, Object.class, compactCodec::decode);
+    return conversionService;
+  }
+}
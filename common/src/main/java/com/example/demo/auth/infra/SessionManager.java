@@ -1,39 +1,36 @@
 package com.example.demo.auth.infra;
 
-import com.example.demo.user.entity.Role;
+import com.example.demo.auth.repository.SpringSessionRepository;
 import com.example.demo.user.entity.User;
+import com.example.demo.user.service.VerifiedCredentialCache;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.time.Instant;
 import lombok.AllArgsConstructor;
+import org.jspecify.annotations.Nullable;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
-import org.springframework.session.FindByIndexNameSessionRepository;
-import org.springframework.session.Session;
 import org.springframework.stereotype.Component;
 
 @Component
 @AllArgsConstructor
 public class SessionManager {
-  private final FindByIndexNameSessionRepository<? extends Session> sessionRepository;
+  private final SpringSessionRepository springSessionRepository;
+  private final WriteBehindSessionStore sessionStore;
+  private final VerifiedCredentialCache credentialCache;
 
   // ----------------------------------------------------------------------------------------------
 
   public void createSession(HttpServletRequest req, User user) {
-    Set<Role> roles = user.getRoles();
-    var authorities =
-        roles.stream()
-            .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
-            .collect(Collectors.toUnmodifiableSet());
+    var authorities = Authorities.of(user);
 
     SecurityContext securityContext = SecurityContextHolder.getContext();
-    Authentication authentication =
-        new UsernamePasswordAuthenticationToken(user.getUsername(), null, authorities);
+    var authentication =
+        UsernamePasswordAuthenticationToken.authenticated(user.getUsername(), null, authorities);
+    // 発行日時。CompactSessionAttributeCodecで小さく保存できるのはこの形だけ
+    authentication.setDetails(Instant.now());
     securityContext.setAuthentication(authentication);
 
     HttpSession session = req.getSession(true);
@@ -53,11 +50,25 @@ public class SessionManager {
     SecurityContextHolder.clearContext();
   }
 
-  // TODO 現在のセッション以外にしたほうがいいかな？
-  public void invalidateAllSessionsForCurrentUser() {
-    String username = getUsername();
-    sessionRepository
-        .findByPrincipalName(username)
-        .forEach((id, session) -> sessionRepository.deleteById(id));
+  /**
+   * {@code username} のセッションを1文でまとめて削除し、削除した数を返す。
+   *
+   * @param keepSessionId 削除しないセッション
+   */
+  public int invalidateAllSessions(String username, @Nullable String keepSessionId) {
+    var ids = springSessionRepository.deleteByPrincipalName(username, keepSessionId);
+    ids.forEach(sessionStore::evict);
+    credentialCache.invalidate(username);
+    return ids.size();
+  }
+
+  /**
+   * 現在のユーザーの、{@code req} のセッション以外を削除する。パスワードを変更した本人がログアウトされないように。
+   *
+   * <p>トークン認証でセッションがなければ全て削除する。
+   */
+  public int invalidateOtherSessionsForCurrentUser(HttpServletRequest req) {
+    HttpSession session = req.getSession(false);
+    return invalidateAllSessions(getUsername(), session != null ? session.getId() : null);
   }
 }
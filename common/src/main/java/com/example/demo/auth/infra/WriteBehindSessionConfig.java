@@ -0,0 +1,34 @@
+package com.example.demo.auth.infra;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+
+/**
+ * {@code session.write-behind.enabled=true} のとき、Spring Bootが作る {@link JdbcIndexedSessionRepository} を
+ * {@link WriteBehindSessionRepository} で包む。
+ *
+ * <p>{@code SessionRepository} のBeanを別に定義するとBootのJDBCセッション設定ごと無効になるので、置き換えではなく包む。
+ */
+@Configuration
+public class WriteBehindSessionConfig {
+
+  @Bean
+  static BeanPostProcessor writeBehindSessionRepositoryPostProcessor(
+      ObjectProvider<WriteBehindSessionStore> store) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof JdbcIndexedSessionRepository jdbc) {
+          var s = store.getObject();
+          if (s.isEnabled()) {
+            return new WriteBehindSessionRepository<>(jdbc, s);
+          }
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -0,0 +1,201 @@
+package com.example.demo.auth.infra;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.jspecify.annotations.Nullable;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+
+/**
+ * 最終アクセス時刻の更新だけを {@link WriteBehindSessionStore} に溜めて、まとめて書くセッションリポジトリ。
+ *
+ * <p>リクエストごとの {@code SPRING_SESSION} の読み書きをなくすためのもの。 読み込みはメモリ上のコピーから返し、
+ * 属性の変更・ID変更・削除があったときだけ元のリポジトリで読み直してその場で書く。
+ *
+ * @param <S> 元のリポジトリのセッション型
+ */
+public class WriteBehindSessionRepository<S extends Session>
+    implements FindByIndexNameSessionRepository<Session> {
+  private final FindByIndexNameSessionRepository<S> delegate;
+  private final WriteBehindSessionStore store;
+
+  public WriteBehindSessionRepository(
+      FindByIndexNameSessionRepository<S> delegate, WriteBehindSessionStore store) {
+    this.delegate = delegate;
+    this.store = store;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // SessionRepository
+
+  @Override
+  public Session createSession() {
+    return delegate.createSession();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void save(Session session) {
+    if (!(session instanceof WriteBehindSession<?> ws)) {
+      // createSessionで作ったもの。作成はその場で書く
+      delegate.save((S) session);
+      store.put(session);
+      return;
+    }
+    var s = (WriteBehindSession<S>) ws;
+
+    var backing = s.backing;
+    if (backing == null) {
+      store.touch(s.getId(), s.getLastAccessedTime(), s.getMaxInactiveInterval());
+      return;
+    }
+    if (s.gone) {
+      store.evictLocal(s.originalId);
+      return;
+    }
+    backing.setLastAccessedTime(s.getLastAccessedTime());
+    delegate.save(backing);
+    store.evict(s.originalId);
+    if (!s.originalId.equals(s.getId())) {
+      store.evict(s.getId());
+    }
+    store.put(s.view);
+    s.originalId = s.getId();
+  }
+
+  @Override
+  public @Nullable Session findById(String id) {
+    var cached = store.get(id);
+    if (cached != null && cached.isExpired()) {
+      // 他ノードでのアクセスがまだ反映されていないだけかもしれないので、DBで確認する
+      store.evictLocal(id);
+      cached = null;
+    }
+    if (cached == null) {
+      var loaded = delegate.findById(id);
+      if (loaded == null) {
+        return null;
+      }
+      cached = store.put(loaded);
+    }
+    return new WriteBehindSession<>(delegate, WriteBehindSessionStore.copyOf(cached));
+  }
+
+  @Override
+  public void deleteById(String id) {
+    delegate.deleteById(id);
+    store.evict(id);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // FindByIndexNameSessionRepository
+
+  @Override
+  public Map<String, Session> findByIndexNameAndIndexValue(String indexName, String indexValue) {
+    return new HashMap<>(delegate.findByIndexNameAndIndexValue(indexName, indexValue));
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Session
+
+  /**
+   * 読み取りはメモリ上のコピーで行う。最終アクセス時刻以外を変更するときだけ、元のリポジトリからセッションを読んでそちらにも反映する。
+   */
+  private static final class WriteBehindSession<S extends Session> implements Session {
+    private final FindByIndexNameSessionRepository<S> delegate;
+    private final MapSession view;
+    private String originalId;
+    private @Nullable S backing;
+    private boolean gone = false;
+
+    WriteBehindSession(FindByIndexNameSessionRepository<S> delegate, MapSession view) {
+      this.delegate = delegate;
+      this.view = view;
+      this.originalId = view.getId();
+    }
+
+    private S backing() {
+      var b = backing;
+      if (b == null) {
+        var loaded = delegate.findById(originalId);
+        if (loaded == null) {
+          // 他ノードで削除済み。変更は捨てる
+          gone = true;
+          loaded = delegate.createSession();
+        }
+        backing = b = loaded;
+      }
+      return b;
+    }
+
+    @Override
+    public String getId() {
+      return view.getId();
+    }
+
+    @Override
+    public String changeSessionId() {
+      var id = backing().changeSessionId();
+      view.setId(id);
+      return id;
+    }
+
+    @Override
+    @SuppressWarnings("TypeParameterUnusedInFormals") // Sessionのシグネチャに合わせる
+    public <T> @Nullable T getAttribute(String attributeName) {
+      return view.getAttribute(attributeName);
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+      return view.getAttributeNames();
+    }
+
+    @Override
+    public void setAttribute(String attributeName, Object attributeValue) {
+      backing().setAttribute(attributeName, attributeValue);
+      view.setAttribute(attributeName, attributeValue);
+    }
+
+    @Override
+    public void removeAttribute(String attributeName) {
+      backing().removeAttribute(attributeName);
+      view.removeAttribute(attributeName);
+    }
+
+    @Override
+    public Instant getCreationTime() {
+      return view.getCreationTime();
+    }
+
+    @Override
+    public void setLastAccessedTime(Instant lastAccessedTime) {
+      view.setLastAccessedTime(lastAccessedTime);
+    }
+
+    @Override
+    public Instant getLastAccessedTime() {
+      return view.getLastAccessedTime();
+    }
+
+    @Override
+    public void setMaxInactiveInterval(Duration interval) {
+      backing().setMaxInactiveInterval(interval);
+      view.setMaxInactiveInterval(interval);
+    }
+
+    @Override
+    public Duration getMaxInactiveInterval() {
+      return view.getMaxInactiveInterval();
+    }
+
+    @Override
+    public boolean isExpired() {
+      return view.isExpired();
+    }
+  }
+}
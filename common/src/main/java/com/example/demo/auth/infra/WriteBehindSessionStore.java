@@ -0,0 +1,242 @@
+package com.example.demo.auth.infra;
+
+import com.example.demo.crosscutting.InvalidationBus;
+import com.example.demo.crosscutting.JooqConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link WriteBehindSessionRepository} の状態。よく使われるセッションのメモリ上のコピーと、まだDBに書いていない最終アクセス時刻を持つ。
+ *
+ * <p>最終アクセス時刻は {@code session.write-behind.flush-interval} ごとに1回のバッチUPDATEでまとめて書く。
+ * プロセスが落ちた場合に失われるのは最大でこの間隔分の更新だけで、その分だけセッションが早く期限切れになりうる。
+ * セッションの作成・属性の変更・削除はその場で書き、{@link InvalidationBus} で他ノードのコピーを捨てさせる。
+ */
+@Slf4j
+@Component
+public class WriteBehindSessionStore {
+  public static final String CACHE_NAME = "sessions";
+
+  /** キーはセッションID */
+  public static final String TOPIC = "session";
+
+  record Touch(Instant lastAccessedTime, Duration maxInactiveInterval) {
+    Touch latest(Touch other) {
+      return other.lastAccessedTime.isAfter(lastAccessedTime) ? other : this;
+    }
+  }
+
+  @Getter private final boolean enabled;
+  private final DSLContext dsl;
+  private final InvalidationBus invalidationBus;
+  private final String updateQuery;
+  private final Cache<String, MapSession> hot;
+  private final Map<String, Touch> pending = new ConcurrentHashMap<>();
+  private final Timer flushTimer;
+  private final Counter flushedCounter;
+
+  public WriteBehindSessionStore(
+      @Qualifier(JooqConfig.SESSION_DSL) DSLContext dsl,
+      InvalidationBus invalidationBus,
+      MeterRegistry meterRegistry,
+      @Value("${session.write-behind.enabled:false}") boolean enabled,
+      @Value("${session.write-behind.cache-ttl:5m}") Duration cacheTtl,
+      @Value("${session.write-behind.maximum-size:10000}") long maximumSize,
+      @Value("${spring.session.jdbc.table-name:SPRING_SESSION}") String tableName) {
+    this.enabled = enabled;
+    this.dsl = dsl;
+    this.invalidationBus = invalidationBus;
+    // 他ノードが書いた新しい時刻を巻き戻さないよう、古い場合だけ更新する
+    this.updateQuery =
+        "UPDATE "
+            + tableName
+            + " SET LAST_ACCESS_TIME = ?, EXPIRY_TIME = ?"
+            + " WHERE SESSION_ID = ? AND LAST_ACCESS_TIME < ?";
+    this.hot =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterAccess(cacheTtl)
+            .recordStats()
+            .build();
+
+    this.flushTimer =
+        Timer.builder("session.write_behind.flush")
+            .description("Time spent writing buffered last-access times")
+            .register(meterRegistry);
+    this.flushedCounter =
+        Counter.builder("session.write_behind.flushed")
+            .description("Number of buffered last-access updates written")
+            .register(meterRegistry);
+    Gauge.builder("session.write_behind.pending", pending, Map::size).register(meterRegistry);
+    CaffeineCacheMetrics.monitor(meterRegistry, hot, CACHE_NAME);
+
+    invalidationBus.subscribe(
+        TOPIC,
+        new InvalidationBus.Listener() {
+          @Override
+          public void invalidate(Set<String> ids) {
+            hot.invalidateAll(ids);
+          }
+
+          @Override
+          public void invalidateAll() {
+            hot.invalidateAll();
+          }
+        });
+    log.info(
+        "Write-behind session store: enabled={}, cacheTtl={}, maximumSize={}",
+        enabled,
+        cacheTtl,
+        maximumSize);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Cache
+
+  /** メモリ上のコピー。呼び出し側で変更しないこと。リクエストに渡すときは {@link #copyOf} でコピーする */
+  @Nullable MapSession get(String id) {
+    return hot.getIfPresent(id);
+  }
+
+  /** DBから読んだ（または書いた）セッションを覚える。未書き込みの最終アクセス時刻があればそちらを使う */
+  MapSession put(Session session) {
+    var copy = copyOf(session);
+    var touch = pending.get(session.getId());
+    if (touch != null && touch.lastAccessedTime().isAfter(copy.getLastAccessedTime())) {
+      copy.setLastAccessedTime(touch.lastAccessedTime());
+    }
+    hot.put(copy.getId(), copy);
+    return copy;
+  }
+
+  /** DBの内容が変わったので、このノードと他ノードのコピーを捨てる */
+  void evict(String id) {
+    if (!enabled) {
+      // 何もキャッシュしていないので、他ノードに知らせる必要もない
+      return;
+    }
+    pending.remove(id);
+    hot.invalidate(id);
+    invalidationBus.publish(TOPIC, id);
+  }
+
+  /** 他ノードには知らせずにこのノードのコピーだけ捨てる */
+  void evictLocal(String id) {
+    hot.invalidate(id);
+  }
+
+  /**
+   * {@code session} のコピー。{@link MapSession} のコピーコンストラクタは属性の値を共有するので、{@link SecurityContext}
+   * だけは作り直す。Spring Securityはログアウトなどで読み込んだSecurityContextを書き換える ({@code setAuthentication(null)})
+   * ため、共有したままだと同じセッションの他のリクエストやキャッシュまで変わってしまう。
+   *
+   * <p>{@link org.springframework.security.core.Authentication} は認証後に変更されないので共有する。
+   * それ以外の属性の値はコピーしないので、セッションには不変な値だけを入れること。
+   */
+  static MapSession copyOf(Session session) {
+    var copy = new MapSession(session);
+    for (var name : copy.getAttributeNames()) {
+      if (copy.getAttribute(name) instanceof SecurityContext context) {
+        copy.setAttribute(name, new SecurityContextImpl(context.getAuthentication()));
+      }
+    }
+    return copy;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Write-behind
+
+  /** 最終アクセス時刻の更新を次のflushまで溜める */
+  void touch(String id, Instant lastAccessedTime, Duration maxInactiveInterval) {
+    var touch = new Touch(lastAccessedTime, maxInactiveInterval);
+    pending.merge(id, touch, Touch::latest);
+    hot.asMap()
+        .computeIfPresent(
+            id,
+            (k, session) -> {
+              if (lastAccessedTime.isAfter(session.getLastAccessedTime())) {
+                session.setLastAccessedTime(lastAccessedTime);
+              }
+              return session;
+            });
+  }
+
+  @Scheduled(fixedDelayString = "${session.write-behind.flush-interval:1s}")
+  @PreDestroy
+  public void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    var ids = new ArrayList<String>();
+    var touches = new ArrayList<Touch>();
+    for (var id : List.copyOf(pending.keySet())) {
+      var touch = pending.remove(id);
+      if (touch != null) {
+        ids.add(id);
+        touches.add(touch);
+      }
+    }
+    if (ids.isEmpty()) {
+      return;
+    }
+
+    try {
+      var counts =
+          flushTimer.record(
+              () -> {
+                var batch = dsl.batch(dsl.query(updateQuery, null, null, null, null));
+                for (int i = 0; i < ids.size(); i++) {
+                  var touch = touches.get(i);
+                  long lastAccess = touch.lastAccessedTime().toEpochMilli();
+                  batch = batch.bind(lastAccess, expiryTime(touch), ids.get(i), lastAccess);
+                }
+                return batch.execute();
+              });
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] == 0) {
+          // 期限切れで消されたか、他ノードがもっと新しい時刻を書いた。次回はDBから読み直す
+          hot.invalidate(ids.get(i));
+        }
+      }
+      flushedCounter.increment(ids.size());
+    } catch (RuntimeException e) {
+      log.warn("Failed to flush session last-access times. Retrying later", e);
+      for (int i = 0; i < ids.size(); i++) {
+        pending.merge(ids.get(i), touches.get(i), Touch::latest);
+      }
+    }
+  }
+
+  private static long expiryTime(Touch touch) {
+    // JdbcIndexedSessionRepositoryと同じく、負の値は期限なし
+    if (touch.maxInactiveInterval().isNegative()) {
+      return Long.MAX_VALUE;
+    }
+    return touch.lastAccessedTime().plus(touch.maxInactiveInterval()).toEpochMilli();
+  }
+}
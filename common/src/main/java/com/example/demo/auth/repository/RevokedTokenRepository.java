@@ -0,0 +1,88 @@
+package com.example.demo.auth.repository;
+
+import static com.example.demo.jooq.tables.RevokedTokens.REVOKED_TOKENS;
+import static com.example.demo.jooq.tables.UserTokenCutoffs.USER_TOKEN_CUTOFFS;
+
+import com.fasterxml.uuid.Generators;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.jspecify.annotations.Nullable;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@AllArgsConstructor
+public class RevokedTokenRepository {
+
+  private final DSLContext dsl;
+
+  // --------------------------------------------------------------------------------------------
+  // Queries
+
+  public record RevokedJti(String jti, OffsetDateTime revokedAt) {}
+
+  /** DBの現在時刻。{@code revoked_at} と同じ時計で比べるために使う */
+  public OffsetDateTime currentTime() {
+    return dsl.select(DSL.currentOffsetDateTime()).fetchSingle().value1();
+  }
+
+  /** {@code since} 以降に失効したJTIを古い順に返す */
+  public List<RevokedJti> findRevokedSince(OffsetDateTime since) {
+    return dsl.select(REVOKED_TOKENS.JTI, REVOKED_TOKENS.REVOKED_AT)
+        .from(REVOKED_TOKENS)
+        .where(REVOKED_TOKENS.REVOKED_AT.ge(since))
+        .orderBy(REVOKED_TOKENS.REVOKED_AT)
+        .fetch(r -> new RevokedJti(r.value1(), r.value2()));
+  }
+
+  public record TokenCutoff(String username, OffsetDateTime notBefore) {}
+
+  /** {@code since} 以降に更新されたユーザーごとの発行時刻の下限 */
+  public List<TokenCutoff> findCutoffsUpdatedSince(OffsetDateTime since) {
+    return dsl.select(USER_TOKEN_CUTOFFS.USERNAME, USER_TOKEN_CUTOFFS.NOT_BEFORE)
+        .from(USER_TOKEN_CUTOFFS)
+        .where(USER_TOKEN_CUTOFFS.UPDATED_AT.ge(since))
+        .fetch(r -> new TokenCutoff(r.value1(), r.value2()));
+  }
+
+  public List<TokenCutoff> findCutoffs(Collection<String> usernames) {
+    return dsl.select(USER_TOKEN_CUTOFFS.USERNAME, USER_TOKEN_CUTOFFS.NOT_BEFORE)
+        .from(USER_TOKEN_CUTOFFS)
+        .where(USER_TOKEN_CUTOFFS.USERNAME.in(usernames))
+        .fetch(r -> new TokenCutoff(r.value1(), r.value2()));
+  }
+
+  // --------------------------------------------------------------------------------------------
+  // Commands
+
+  /** 既に失効済みなら何もしない */
+  public void insert(String jti, @Nullable String reason, @Nullable UUID createdByUserId) {
+    dsl.insertInto(REVOKED_TOKENS)
+        .set(REVOKED_TOKENS.ID, Generators.timeBasedEpochRandomGenerator().generate())
+        .set(REVOKED_TOKENS.JTI, jti)
+        .set(REVOKED_TOKENS.REASON, reason)
+        .set(REVOKED_TOKENS.CREATED_BY_USER_ID, createdByUserId)
+        .onConflict(REVOKED_TOKENS.JTI)
+        .doNothing()
+        .execute();
+  }
+
+  /** 既にもっと新しい下限があれば、それを残す */
+  public void upsertCutoff(String username, OffsetDateTime notBefore) {
+    dsl.insertInto(USER_TOKEN_CUTOFFS)
+        .set(USER_TOKEN_CUTOFFS.USERNAME, username)
+        .set(USER_TOKEN_CUTOFFS.NOT_BEFORE, notBefore)
+        .onConflict(USER_TOKEN_CUTOFFS.USERNAME)
+        .doUpdate()
+        .set(
+            USER_TOKEN_CUTOFFS.NOT_BEFORE,
+            DSL.greatest(
+                USER_TOKEN_CUTOFFS.NOT_BEFORE, DSL.excluded(USER_TOKEN_CUTOFFS.NOT_BEFORE)))
+        .set(USER_TOKEN_CUTOFFS.UPDATED_AT, DSL.currentOffsetDateTime())
+        .execute();
+  }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.auth.repository;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+import static org.jooq.impl.DSL.unquotedName;
+
+import com.example.demo.crosscutting.JooqConfig;
+import java.util.List;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Table;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Session JDBCのテーブルに対する一括操作。
+ *
+ * <p>テーブルはSpring Sessionが作るのでjOOQのコード生成の対象外。 属性のテーブルは {@code ON DELETE CASCADE} で一緒に消える。
+ */
+@Repository
+public class SpringSessionRepository {
+  private static final Field<String> SESSION_ID = field(unquotedName("SESSION_ID"), String.class);
+  private static final Field<String> PRINCIPAL_NAME =
+      field(unquotedName("PRINCIPAL_NAME"), String.class);
+
+  private final DSLContext dsl;
+  private final Table<?> sessions;
+
+  public SpringSessionRepository(
+      @Qualifier(JooqConfig.SESSION_DSL) DSLContext dsl,
+      @Value("${spring.session.jdbc.table-name:SPRING_SESSION}") String tableName) {
+    this.dsl = dsl;
+    this.sessions = table(unquotedName(tableName));
+  }
+
+  // --------------------------------------------------------------------------------------------
+  // Commands
+
+  /**
+   * {@code principalName} のセッションを1文で削除し、削除したセッションIDを返す。
+   *
+   * @param exceptSessionId 削除しないセッション
+   */
+  public List<String> deleteByPrincipalName(
+      String principalName, @Nullable String exceptSessionId) {
+    var condition = PRINCIPAL_NAME.eq(principalName);
+    if (exceptSessionId != null) {
+      condition = condition.and(SESSION_ID.ne(exceptSessionId));
+    }
+    return dsl.deleteFrom(sessions)
+        .where(condition)
+        .returningResult(SESSION_ID)
+        .fetch(Record1::value1);
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.crosscutting;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 同時に来た1件ずつの読み込みを、短い時間窓でまとめて1回の一括読み込みにする (DataLoaderと同じ考え方)。
+ *
+ * <p>窓の中で最初に来たスレッドが {@code window} だけ待ってから、その間に集まったキーをまとめて {@code loader} に渡す。
+ * 他のスレッドはその結果を待つだけなので、専用のスレッドは持たない。{@code maxBatchSize} 件集まったら窓を待たずに読む。
+ *
+ * <p>仮想スレッドで待たせるので、ロックは {@code synchronized} ではなく {@link ReentrantLock} にしている。
+ *
+ * @param <K> キー
+ * @param <V> 値。{@code loader} の結果にないキーは {@code Optional.empty()} になる
+ */
+public final class BatchLoader<K, V> {
+  private final Function<Set<K>, Map<K, V>> loader;
+  private final Duration window;
+  private final int maxBatchSize;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private @Nullable Map<K, CompletableFuture<Optional<V>>> open;
+
+  public BatchLoader(Function<Set<K>, Map<K, V>> loader, Duration window, int maxBatchSize) {
+    this.loader = loader;
+    this.window = window;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public Optional<V> load(K key) {
+    Map<K, CompletableFuture<Optional<V>>> batch;
+    CompletableFuture<Optional<V>> future;
+    boolean leader = false;
+    boolean closed = false;
+    lock.lock();
+    try {
+      if (open == null) {
+        open = new LinkedHashMap<>();
+        leader = true;
+      }
+      batch = open;
+      future = batch.computeIfAbsent(key, k -> new CompletableFuture<>());
+      if (batch.size() >= maxBatchSize) {
+        open = null;
+        closed = true;
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    if (leader && !closed) {
+      sleep(window);
+      lock.lock();
+      try {
+        // 待っている間に一杯になっていれば、閉じたスレッドが読んでいる
+        if (open == batch) {
+          open = null;
+          closed = true;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    // 窓を閉じたスレッドが読む。閉じた後は誰もbatchに触らない
+    if (closed) {
+      dispatch(batch);
+    }
+    return join(future);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private void dispatch(Map<K, CompletableFuture<Optional<V>>> batch) {
+    try {
+      var values = loader.apply(batch.keySet());
+      batch.forEach((key, future) -> future.complete(Optional.ofNullable(values.get(key))));
+    } catch (Throwable e) {
+      // Errorでも全員を完了させないと、待っているスレッドが永久に待つ。読んだスレッドには自分のFutureから投げる
+      batch.values().forEach(future -> future.completeExceptionally(e));
+    }
+  }
+
+  private static void sleep(Duration duration) {
+    try {
+      Thread.sleep(duration);
+    } catch (InterruptedException e) {
+      // 待たずにそのまま読む
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
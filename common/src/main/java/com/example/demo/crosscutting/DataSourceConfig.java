@@ -0,0 +1,189 @@
+package com.example.demo.crosscutting;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+import org.springframework.session.jdbc.config.annotation.SpringSessionDataSource;
+import org.springframework.session.jdbc.config.annotation.SpringSessionTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * 用途ごとのコネクションプール。接続先は共通で、プールだけ分ける。
+ *
+ * <ul>
+ *   <li>domain ({@code spring.datasource.hikari.*}): jOOQ、Flyway、トランザクション
+ *   <li>session ({@code session.datasource.hikari.*}): Spring Session JDBCとセッションテーブルへの一括操作
+ * </ul>
+ *
+ * <p>トランザクションマネージャーもプールごとに持つ。{@code @Transactional} とjOOQはdomainの ({@code @Primary})、Spring
+ * Sessionはsessionのものを使う。
+ *
+ * <p>セッションの書き込みが集中しても、ログインのクエリがコネクション待ちにならないよう分けている。 どちらも起動時に {@code minimum-idle}
+ * までコネクションを張ってからリクエストを受け付ける。
+ *
+ * <p>メトリクスはSpring Bootが {@code hikaricp.*} にプール名のタグ ({@code pool}) を付けて出す。
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+public class DataSourceConfig {
+  public static final String DOMAIN_POOL = "domain";
+  public static final String SESSION_POOL = "session";
+
+  @Bean
+  @Primary
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource dataSource(
+      DataSourceProperties properties, ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+    return create(properties, connectionDetails, DOMAIN_POOL);
+  }
+
+  @Bean
+  @SpringSessionDataSource
+  @ConfigurationProperties("session.datasource.hikari")
+  public HikariDataSource sessionDataSource(
+      DataSourceProperties properties, ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+    return create(properties, connectionDetails, SESSION_POOL);
+  }
+
+  /** {@code @Transactional} とjOOQのトランザクション。下のセッション用を定義するとBootは作らなくなるので、ここで同じものを作る */
+  @Bean
+  @Primary
+  public JdbcTransactionManager transactionManager(
+      DataSource dataSource, ObjectProvider<TransactionManagerCustomizers> customizers) {
+    var transactionManager = new JdbcTransactionManager(dataSource);
+    customizers.ifAvailable(c -> c.customize(transactionManager));
+    return transactionManager;
+  }
+
+  /**
+   * Spring Session JDBCのトランザクション。
+   *
+   * <p>指定しないとSpring Sessionは唯一の {@link PlatformTransactionManager} (domain) を使う。セッションを読み書きするたびにdomainの
+   * コネクションを握ったまま、SQLはsessionのプールで自動コミットで流れる (属性の削除と追加がアトミックでなくなる)。
+   */
+  @Bean
+  @SpringSessionTransactionManager
+  public DataSourceTransactionManager sessionTransactionManager(
+      @SpringSessionDataSource DataSource sessionDataSource) {
+    return new DataSourceTransactionManager(sessionDataSource);
+  }
+
+  /** Webサーバーの起動より前に、各プールを {@code minimum-idle} まで埋める */
+  @Bean
+  public SmartInitializingSingleton dataSourceWarmUp(
+      List<DataSource> dataSources, @Value("${datasource.warm-up.timeout:10s}") Duration timeout) {
+    return () -> {
+      if (!timeout.isPositive()) {
+        return;
+      }
+      for (var dataSource : dataSources) {
+        try {
+          // 計測などで包まれていることがある
+          if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            warmUp(dataSource.unwrap(HikariDataSource.class), timeout);
+          }
+        } catch (SQLException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  /**
+   * 接続先。Testcontainersの {@code @ServiceConnection} があればそれを、なければ {@code spring.datasource.*} を使う。
+   *
+   * <p>DataSourceを自前で定義するとSpring Bootは {@link JdbcConnectionDetails} を作らないので、ここで補う。
+   */
+  public static JdbcConnectionDetails connectionDetails(
+      DataSourceProperties properties, ObjectProvider<JdbcConnectionDetails> connectionDetails) {
+    return connectionDetails.getIfAvailable(
+        () ->
+            new JdbcConnectionDetails() {
+              @Override
+              public String getUsername() {
+                return properties.determineUsername();
+              }
+
+              @Override
+              public String getPassword() {
+                return properties.determinePassword();
+              }
+
+              @Override
+              public String getJdbcUrl() {
+                return properties.determineUrl();
+              }
+
+              @Override
+              public String getDriverClassName() {
+                return properties.determineDriverClassName();
+              }
+            });
+  }
+
+  private static HikariDataSource create(
+      DataSourceProperties properties,
+      ObjectProvider<JdbcConnectionDetails> connectionDetails,
+      String poolName) {
+    var details = connectionDetails(properties, connectionDetails);
+    var dataSource =
+        DataSourceBuilder.create(properties.getClassLoader())
+            .type(HikariDataSource.class)
+            .driverClassName(details.getDriverClassName())
+            .url(details.getJdbcUrl())
+            .username(details.getUsername())
+            .password(details.getPassword())
+            .build();
+    dataSource.setPoolName(poolName);
+    return dataSource;
+  }
+
+  /** HikariCPはminimum-idleまでのコネクションを別スレッドで張るので、揃うまで待つ */
+  private static void warmUp(HikariDataSource dataSource, Duration timeout) {
+    // 最初のgetConnectionでプールが開始する
+    try (var connection = dataSource.getConnection()) {
+      log.debug("Pool {} started", dataSource.getPoolName());
+    } catch (SQLException e) {
+      throw new IllegalStateException("Failed to start pool " + dataSource.getPoolName(), e);
+    }
+    var pool = dataSource.getHikariPoolMXBean();
+    if (pool == null) {
+      return;
+    }
+    long start = System.nanoTime();
+    long deadline = start + timeout.toNanos();
+    while (pool.getTotalConnections() < dataSource.getMinimumIdle()
+        && System.nanoTime() < deadline) {
+      try {
+        Thread.sleep(10);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    log.info(
+        "Pool {} warmed up: {} connections in {} ms",
+        dataSource.getPoolName(),
+        pool.getTotalConnections(),
+        Duration.ofNanos(System.nanoTime() - start).toMillis());
+  }
+}
@@ -0,0 +1,177 @@
+package com.example.demo.crosscutting;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * パスワードハッシュ計算専用のExecutor。
+ *
+ * <p>BCryptはCPUを占有するため、リクエストスレッドで直接実行するとログインが集中したときに他のAPIまで詰まる。
+ * プールはCPUコア数、キューは有界にして、溢れたら {@link SaturatedException} で即座に諦める。
+ *
+ * <p>仮想スレッドモード ({@code spring.threads.virtual.enabled}) でもこのプールはプラットフォームスレッドのまま。
+ * CPUを使い切る処理を仮想スレッドで動かすとキャリアスレッドを奪い合うため。リクエスト側の仮想スレッドは結果を待つ間アンマウントされる。
+ */
+@Slf4j
+@Component
+public class HashingExecutor {
+
+  private final ThreadPoolExecutor executor;
+  private final MeterRegistry meterRegistry;
+  private final Duration retryAfter;
+
+  /** キューの名前ごとのメーター。名前は数種類しかないので、呼ぶたびに登録し直さず使い回す */
+  private final Map<String, QueueMeters> meters = new ConcurrentHashMap<>();
+
+  public HashingExecutor(
+      MeterRegistry meterRegistry,
+      @Value("${auth.hashing.pool-size:0}") int poolSize,
+      @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+      @Value("${auth.hashing.retry-after:1s}") Duration retryAfter) {
+    var threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    var counter = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+              var t = new Thread(r, "hashing-" + counter.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    this.meterRegistry = meterRegistry;
+    this.retryAfter = retryAfter;
+
+    Gauge.builder("auth.hashing.queue.size", executor, e -> e.getQueue().size())
+        .register(meterRegistry);
+    Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .register(meterRegistry);
+    log.info("Hashing executor started: threads={}, queueCapacity={}", threads, queueCapacity);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  /** キューが一杯で受け付けられなかった */
+  @Getter
+  public static class SaturatedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public SaturatedException(Duration retryAfter) {
+      super("Hashing executor is saturated");
+      this.retryAfter = retryAfter;
+    }
+  }
+
+  /**
+   * {@code task} をハッシュ用スレッドで実行し、結果を待つ。
+   *
+   * @param queue メトリクスのタグ。"hash" / "verify" など
+   * @throws SaturatedException キューが一杯のとき
+   */
+  public <T> T call(String queue, Supplier<T> task) {
+    var m = meters(queue);
+    long enqueuedAt = System.nanoTime();
+    Future<T> future;
+    try {
+      future =
+          executor.submit(
+              () -> {
+                m.queueWait().record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return m.execution().record(task);
+              });
+    } catch (RejectedExecutionException e) {
+      m.rejected().increment();
+      throw new SaturatedException(retryAfter);
+    }
+
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for hashing", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      } else if (e.getCause() instanceof Error err) {
+        throw err;
+      } else {
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+  }
+
+  /**
+   * {@code task} をハッシュ用スレッドで非同期に実行する。結果は待たない。
+   *
+   * @return キューが一杯で受け付けられなかった場合はfalse
+   */
+  public boolean tryExecute(String queue, Runnable task) {
+    var m = meters(queue);
+    long enqueuedAt = System.nanoTime();
+    try {
+      executor.execute(
+          () -> {
+            m.queueWait().record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+              m.execution().record(task);
+            } catch (RuntimeException e) {
+              log.warn("Background hashing task failed: queue={}", queue, e);
+            }
+          });
+      return true;
+    } catch (RejectedExecutionException e) {
+      m.rejected().increment();
+      return false;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Metrics
+
+  private record QueueMeters(Timer queueWait, Timer execution, Counter rejected) {}
+
+  private QueueMeters meters(String queue) {
+    return meters.computeIfAbsent(queue, this::createMeters);
+  }
+
+  private QueueMeters createMeters(String queue) {
+    return new QueueMeters(
+        Timer.builder("auth.hashing.queue.wait")
+            .tag("queue", queue)
+            .publishPercentileHistogram()
+            .register(meterRegistry),
+        Timer.builder("auth.hashing.execution")
+            .tag("queue", queue)
+            .publishPercentileHistogram()
+            .register(meterRegistry),
+        Counter.builder("auth.hashing.rejected").tag("queue", queue).register(meterRegistry));
+  }
+}
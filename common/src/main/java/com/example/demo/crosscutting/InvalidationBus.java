@@ -0,0 +1,310 @@
+package com.example.demo.crosscutting;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.jspecify.annotations.Nullable;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * PostgreSQLのLISTEN/NOTIFYを使ったノード間のキャッシュ無効化。
+ *
+ * <p>{@link #publish} されたキーはトピックごとにまとめて、{@code invalidation.flush-interval} ごとに1回のNOTIFYで送る。
+ * キーが多すぎるトピックは「全件無効化」1通に畳む。 受信は専用のJDBC接続（プール外）で行い、接続が切れている間の通知は失われるので、
+ * 再接続したときは全購読者に全件無効化を流す。
+ */
+@Slf4j
+@Component
+public class InvalidationBus implements SmartLifecycle {
+  public static final String CHANNEL = "cache_invalidation";
+
+  // NOTIFYのペイロードは8000バイトまで
+  private static final int MAX_PAYLOAD_BYTES = 7000;
+
+  /** 他ノードからの無効化通知を受け取る */
+  public interface Listener {
+    void invalidate(Set<String> keys);
+
+    void invalidateAll();
+  }
+
+  record Message(String node, String topic, boolean all, List<String> keys) {}
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> pending = new ConcurrentHashMap<>();
+  private final Set<String> pendingAll = ConcurrentHashMap.newKeySet();
+
+  private final DSLContext dsl;
+  private final JdbcConnectionDetails connectionDetails;
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+  private final Duration flushInterval;
+  private final int maxKeysPerTopic;
+
+  private final ScheduledExecutorService flusher =
+      Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "invalidation-flush"));
+  private volatile boolean running = false;
+  private @Nullable Thread listenerThread;
+
+  public InvalidationBus(
+      DSLContext dsl,
+      DataSourceProperties dataSourceProperties,
+      ObjectProvider<JdbcConnectionDetails> connectionDetails,
+      ObjectMapper objectMapper,
+      @Value("${invalidation.enabled:true}") boolean enabled,
+      @Value("${invalidation.flush-interval:50ms}") Duration flushInterval,
+      @Value("${invalidation.max-keys-per-topic:1000}") int maxKeysPerTopic) {
+    this.dsl = dsl;
+    this.connectionDetails =
+        DataSourceConfig.connectionDetails(dataSourceProperties, connectionDetails);
+    this.objectMapper = objectMapper;
+    this.enabled = enabled;
+    this.flushInterval = flushInterval;
+    this.maxKeysPerTopic = maxKeysPerTopic;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // API
+
+  public void subscribe(String topic, Listener listener) {
+    listeners.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(listener);
+  }
+
+  /** 他ノードに {@code key} の無効化を通知する。トランザクション中ならコミット後に送る */
+  public void publish(String topic, String key) {
+    if (!enabled) {
+      return;
+    }
+    afterCommit(
+        () ->
+            // flushのremoveと競合しないようにcomputeの中で追加する
+            pending.compute(
+                topic,
+                (t, keys) -> {
+                  var set = keys != null ? keys : ConcurrentHashMap.<String>newKeySet();
+                  set.add(key);
+                  return set;
+                }));
+  }
+
+  /** 他ノードに {@code topic} の全件無効化を通知する */
+  public void publishAll(String topic) {
+    if (!enabled) {
+      return;
+    }
+    afterCommit(() -> pendingAll.add(topic));
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Publish
+
+  private static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+
+  private void flush() {
+    try {
+      for (var topic : List.copyOf(pendingAll)) {
+        pendingAll.remove(topic);
+        pending.remove(topic);
+        send(new Message(nodeId, topic, true, List.of()));
+      }
+      for (var topic : List.copyOf(pending.keySet())) {
+        var keys = pending.remove(topic);
+        if (keys == null || keys.isEmpty()) {
+          continue;
+        }
+        if (keys.size() > maxKeysPerTopic) {
+          send(new Message(nodeId, topic, true, List.of()));
+          continue;
+        }
+        for (var chunk : chunk(keys)) {
+          send(new Message(nodeId, topic, false, chunk));
+        }
+      }
+    } catch (RuntimeException e) {
+      log.warn("Failed to publish cache invalidation", e);
+    }
+  }
+
+  private static List<List<String>> chunk(Set<String> keys) {
+    var chunks = new ArrayList<List<String>>();
+    var current = new ArrayList<String>();
+    int size = 0;
+    for (var key : keys) {
+      // JSONのクォートと区切りの分を多めに見積もる
+      int keySize = key.length() * 3 + 4;
+      if (!current.isEmpty() && size + keySize > MAX_PAYLOAD_BYTES) {
+        chunks.add(current);
+        current = new ArrayList<>();
+        size = 0;
+      }
+      current.add(key);
+      size += keySize;
+    }
+    if (!current.isEmpty()) {
+      chunks.add(current);
+    }
+    return chunks;
+  }
+
+  private void send(Message message) {
+    try {
+      var payload = objectMapper.writeValueAsString(message);
+      dsl.execute("select pg_notify(?, ?)", CHANNEL, payload);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Listen
+
+  private void listenLoop() {
+    boolean connectedBefore = false;
+    while (running) {
+      try (var conn = connect()) {
+        try (var stmt = conn.createStatement()) {
+          stmt.execute("LISTEN " + CHANNEL);
+        }
+        log.info("Listening for cache invalidations: node={}", nodeId);
+        if (connectedBefore) {
+          // 切断中の通知は取りこぼしているかもしれない
+          listeners.values().forEach(ls -> ls.forEach(Listener::invalidateAll));
+        }
+        connectedBefore = true;
+
+        var pg = conn.unwrap(PGConnection.class);
+        while (running) {
+          var notifications = pg.getNotifications(500);
+          if (notifications == null) {
+            continue;
+          }
+          for (var n : notifications) {
+            dispatch(n.getParameter());
+          }
+        }
+      } catch (SQLException e) {
+        if (running) {
+          log.warn("Invalidation listener disconnected. Reconnecting", e);
+          sleepQuietly(Duration.ofSeconds(1));
+        }
+      }
+    }
+  }
+
+  private Connection connect() throws SQLException {
+    return DriverManager.getConnection(
+        connectionDetails.getJdbcUrl(),
+        connectionDetails.getUsername(),
+        connectionDetails.getPassword());
+  }
+
+  private void dispatch(String payload) {
+    Message message;
+    try {
+      message = objectMapper.readValue(payload, Message.class);
+    } catch (JsonProcessingException e) {
+      log.warn("Malformed invalidation payload: {}", payload, e);
+      return;
+    }
+    if (nodeId.equals(message.node())) {
+      return;
+    }
+    for (var listener : listeners.getOrDefault(message.topic(), List.of())) {
+      try {
+        if (message.all()) {
+          listener.invalidateAll();
+        } else {
+          listener.invalidate(Set.copyOf(message.keys()));
+        }
+      } catch (RuntimeException e) {
+        log.warn("Invalidation listener failed: topic={}", message.topic(), e);
+      }
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Lifecycle
+
+  @Override
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    long interval = flushInterval.toMillis();
+    var unused =
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    var thread = daemon(this::listenLoop, "invalidation-listener");
+    thread.start();
+    listenerThread = thread;
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    flusher.shutdown();
+    flush();
+    var thread = listenerThread;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private static Thread daemon(Runnable r, String name) {
+    var t = new Thread(r, name);
+    t.setDaemon(true);
+    return t;
+  }
+
+  private static void sleepQuietly(Duration duration) {
+    try {
+      Thread.sleep(duration);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -3,15 +3,58 @@ package com.example.demo.crosscutting;
 import javax.sql.DataSource;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
+import org.jooq.TransactionProvider;
 import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.autoconfigure.jooq.SpringTransactionProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.session.jdbc.config.annotation.SpringSessionDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
 
+/**
+ * DSLContextはどちらも {@link TransactionAwareDataSourceProxy} 経由でコネクションを取る。Springのトランザクション
+ * ({@code @Transactional}) の中ではそのコネクションを使い、1リクエストで2本握らないようにする。
+ */
 @Configuration
 public class JooqConfig {
+  /** セッションのプールを使うDSLContextの名前。{@code @Qualifier} で指定する */
+  public static final String SESSION_DSL = "sessionDsl";
 
+  /** {@code dsl.transaction(...)} もSpringのトランザクションに参加させる (中ではセーブポイント) */
   @Bean
-  public DSLContext dsl(DataSource dataSource) {
-    return DSL.using(dataSource, SQLDialect.POSTGRES);
+  @Primary
+  public DSLContext dsl(
+      DataSource dataSource,
+      PlatformTransactionManager transactionManager,
+      QueryMetricsListener queryMetricsListener) {
+    return create(
+        dataSource, new SpringTransactionProvider(transactionManager), queryMetricsListener);
+  }
+
+  /** Spring Sessionのテーブルを直接触るとき用。{@link DataSourceConfig} */
+  @Bean(SESSION_DSL)
+  public DSLContext sessionDsl(
+      @SpringSessionDataSource DataSource sessionDataSource,
+      QueryMetricsListener queryMetricsListener) {
+    return create(sessionDataSource, null, queryMetricsListener);
+  }
+
+  private static DSLContext create(
+      DataSource dataSource,
+      @Nullable TransactionProvider transactionProvider,
+      QueryMetricsListener queryMetricsListener) {
+    var configuration =
+        new DefaultConfiguration()
+            .set(new TransactionAwareDataSourceProxy(dataSource))
+            .set(SQLDialect.POSTGRES)
+            .set(queryMetricsListener);
+    if (transactionProvider != null) {
+      configuration.set(transactionProvider);
+    }
+    return DSL.using(configuration);
   }
 }
@@ -0,0 +1,66 @@
+package com.example.demo.crosscutting;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.AllArgsConstructor;
+import org.jspecify.annotations.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * サービスやリポジトリのメソッド単位の処理時間を、結果の種類ごとに記録する。
+ *
+ * <p>タグ: {@code method}、{@code result} (sealed interfaceの実装のクラス名、Optionalなら present/empty)、
+ * {@code exception} (例外のクラス名。なければ none)。Timerなので件数もここから取れる。
+ *
+ * <p>{@code Timer.builder(...).register(...)} は毎回ビルダーとタグを作ってレジストリを引くので、呼び出しのたびにはやらない。
+ * タグの組み合わせごとに1回だけ登録して使い回す。
+ */
+@Component
+@AllArgsConstructor
+public class OperationMetrics {
+  private static final String NONE = "none";
+
+  private final MeterRegistry meterRegistry;
+  private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+  /** {@code operation} を実行して {@code name} のTimerに記録する */
+  public <T> T record(String name, String method, Supplier<T> operation) {
+    var sample = Timer.start(meterRegistry);
+    try {
+      T result = operation.get();
+      sample.stop(timer(name, method, resultOf(result), NONE));
+      return result;
+    } catch (RuntimeException | Error e) {
+      sample.stop(timer(name, method, NONE, e.getClass().getSimpleName()));
+      throw e;
+    }
+  }
+
+  static String resultOf(@Nullable Object result) {
+    return switch (result) {
+      case null -> "null";
+      case Optional<?> optional -> optional.isPresent() ? "present" : "empty";
+      case Boolean b -> b.toString();
+      case Object o -> o.getClass().getSimpleName();
+    };
+  }
+
+  private Timer timer(String name, String method, String result, String exception) {
+    return timers.computeIfAbsent(new TimerKey(name, method, result, exception), this::register);
+  }
+
+  private Timer register(TimerKey key) {
+    return Timer.builder(key.name())
+        .tag("method", key.method())
+        .tag("result", key.result())
+        .tag("exception", key.exception())
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private record TimerKey(String name, String method, String result, String exception) {}
+}
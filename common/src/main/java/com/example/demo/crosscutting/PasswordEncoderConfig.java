@@ -0,0 +1,117 @@
+package com.example.demo.crosscutting;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.IntFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * パスワードハッシュの設定。
+ *
+ * <p>ハッシュは {@code {bcrypt}...} / {@code {argon2}...} のようにアルゴリズムIDを前置して保存する。
+ * コストは起動時に実測して {@code auth.password.target-latency} に収まる最大値を選ぶので、 マシンを変えてもマイグレーションなしで追従できる。
+ * 設定より弱いハッシュはログイン成功時に再ハッシュされる（{@code PasswordEncoder#upgradeEncoding}）。
+ */
+@Slf4j
+@Configuration
+public class PasswordEncoderConfig {
+
+  public static final String BCRYPT = "bcrypt";
+  public static final String ARGON2 = "argon2";
+
+  // これより弱くはしない (OWASP Password Storage Cheat Sheet)
+  private static final int BCRYPT_MIN_COST = 10;
+  private static final int BCRYPT_MAX_COST = 31;
+  private static final int ARGON2_MIN_ITERATIONS = 2;
+  private static final int ARGON2_MAX_ITERATIONS = 32;
+  private static final int ARGON2_MEMORY_KIB = 19 * 1024;
+
+  @Bean
+  public PasswordEncoder passwordEncoder(
+      @Value("${auth.password.algorithm:bcrypt}") String algorithm,
+      @Value("${auth.password.target-latency:50ms}") Duration targetLatency) {
+    var bcrypt =
+        BCRYPT.equals(algorithm)
+            ? calibrate(
+                BCRYPT,
+                BCRYPT_MIN_COST,
+                BCRYPT_MAX_COST,
+                targetLatency,
+                PasswordEncoderConfig::bcrypt)
+            : new BCryptPasswordEncoder(BCRYPT_MIN_COST);
+    var argon2 =
+        ARGON2.equals(algorithm)
+            ? calibrate(
+                ARGON2,
+                ARGON2_MIN_ITERATIONS,
+                ARGON2_MAX_ITERATIONS,
+                targetLatency,
+                PasswordEncoderConfig::argon2)
+            : argon2(ARGON2_MIN_ITERATIONS);
+
+    var encoder =
+        switch (algorithm) {
+          case BCRYPT, ARGON2 ->
+              new DelegatingPasswordEncoder(algorithm, Map.of(BCRYPT, bcrypt, ARGON2, argon2));
+          default -> throw new IllegalArgumentException("Unknown password algorithm: " + algorithm);
+        };
+    // プレフィックスなしの既存ハッシュ (V2__insert_test_data.sql など) はBCryptとして扱う
+    encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+    return encoder;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Calibration
+
+  /** コストを1つずつ上げていき、目標時間を超える直前のコストを選ぶ。ただし {@code min} は下回らない */
+  private static PasswordEncoder calibrate(
+      String algorithm,
+      int min,
+      int max,
+      Duration target,
+      IntFunction<PasswordEncoder> encoderForCost) {
+    int chosen = min;
+    Duration chosenLatency = measure(encoderForCost.apply(min));
+    for (int cost = min + 1; cost <= max; cost++) {
+      var latency = measure(encoderForCost.apply(cost));
+      if (latency.compareTo(target) > 0) {
+        break;
+      }
+      chosen = cost;
+      chosenLatency = latency;
+    }
+    log.info(
+        "Password hashing calibrated: algorithm={}, cost={}, latency={}ms, target={}ms",
+        algorithm,
+        chosen,
+        chosenLatency.toMillis(),
+        target.toMillis());
+    return encoderForCost.apply(chosen);
+  }
+
+  private static Duration measure(PasswordEncoder encoder) {
+    var sample = "calibration-sample-password";
+    encoder.encode(sample); // warm up
+    int runs = 3;
+    long start = System.nanoTime();
+    for (int i = 0; i < runs; i++) {
+      encoder.encode(sample);
+    }
+    return Duration.ofNanos((System.nanoTime() - start) / runs);
+  }
+
+  private static PasswordEncoder bcrypt(int cost) {
+    return new BCryptPasswordEncoder(cost);
+  }
+
+  private static PasswordEncoder argon2(int iterations) {
+    return new Argon2PasswordEncoder(16, 32, 1, ARGON2_MEMORY_KIB, iterations);
+  }
+}
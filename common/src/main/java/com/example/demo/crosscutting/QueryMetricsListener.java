@@ -0,0 +1,298 @@
+package com.example.demo.crosscutting;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.ExecuteType;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * jOOQが実行するSQLを、リテラルやバインド値を除いた形 (フィンガープリント) ごとに集計する。
+ *
+ * <ul>
+ *   <li>メトリクス: {@code jooq.query} (Timer)、{@code jooq.query.rows} (取得・更新した行数)。タグは {@code
+ *       fingerprint} と {@code type}
+ *   <li>閾値を超えたSQLのログ。バインド値は出さない
+ *   <li>直近の合計時間の上位。{@link QueryStatsEndpoint} で見る
+ * </ul>
+ *
+ * <p>上位の集計は {@code window} ごとに切り替える2つの窓で持つので、直近 {@code window} 〜 2倍の期間が対象になる。
+ *
+ * <p>メトリクスも上位の集計も {@code maximum-statements} 種類まで。それを超えたSQLのメトリクスは {@code fingerprint=}{@value
+ * #OVERFLOW} にまとめる (タグの組み合わせが際限なく増えないように)。
+ */
+@Slf4j
+@Component
+public class QueryMetricsListener implements ExecuteListener {
+  private static final String STATE = QueryMetricsListener.class.getName();
+
+  /** {@code maximum-statements} を超えたSQLのフィンガープリント */
+  static final String OVERFLOW = "other";
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+  private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private final MeterRegistry meterRegistry;
+  private final Duration slowQueryThreshold;
+  private final int maximumStatements;
+
+  /** jOOQが出力したSQL → フィンガープリント。SQLの形はコード上で決まるので数は限られる */
+  private final Cache<String, Fingerprint> fingerprints;
+
+  /** キーは {@code フィンガープリント/type} */
+  private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+  private volatile Map<String, Stats> current = new ConcurrentHashMap<>();
+  private volatile Map<String, Stats> previous = Map.of();
+
+  public QueryMetricsListener(
+      MeterRegistry meterRegistry,
+      @Value("${jooq.metrics.slow-query-threshold:500ms}") Duration slowQueryThreshold,
+      @Value("${jooq.metrics.maximum-statements:1000}") int maximumStatements) {
+    this.meterRegistry = meterRegistry;
+    this.slowQueryThreshold = slowQueryThreshold;
+    this.maximumStatements = maximumStatements;
+    this.fingerprints = Caffeine.newBuilder().maximumSize(maximumStatements).build();
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // ExecuteListener
+
+  @Override
+  public void start(ExecuteContext ctx) {
+    ctx.data(STATE, new Execution(System.nanoTime()));
+  }
+
+  @Override
+  public void recordEnd(ExecuteContext ctx) {
+    if (ctx.data(STATE) instanceof Execution execution) {
+      execution.fetched++;
+    }
+  }
+
+  @Override
+  public void end(ExecuteContext ctx) {
+    if (!(ctx.data(STATE) instanceof Execution execution)) {
+      return;
+    }
+    var sql = sql(ctx);
+    if (sql == null) {
+      return;
+    }
+    long elapsed = System.nanoTime() - execution.startedAt;
+    // SELECTでもrows()に件数が入るので、更新系だけ数える
+    long affected = ctx.type() == ExecuteType.READ ? 0 : Math.max(ctx.rows(), 0);
+    var fingerprint = fingerprints.get(sql, QueryMetricsListener::fingerprint);
+    var type = ctx.type().name().toLowerCase(Locale.ROOT);
+
+    var m = meters(fingerprint.id(), type);
+    m.timer.record(elapsed, TimeUnit.NANOSECONDS);
+    if (execution.fetched > 0) {
+      m.fetched.record((double) execution.fetched);
+    }
+    if (affected > 0) {
+      m.affected.record((double) affected);
+    }
+    var stats = stats(fingerprint);
+    if (stats != null) {
+      stats.record(elapsed, execution.fetched, affected);
+    }
+
+    if (elapsed >= slowQueryThreshold.toNanos()) {
+      log.warn(
+          "Slow query: {} ms, fingerprint={}, fetched={}, affected={}, sql={}",
+          TimeUnit.NANOSECONDS.toMillis(elapsed),
+          fingerprint.id(),
+          execution.fetched,
+          affected,
+          fingerprint.sql());
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Top N
+
+  /** 集計の窓を切り替える */
+  @Scheduled(fixedRateString = "${jooq.metrics.window:5m}")
+  public void rotate() {
+    previous = current;
+    current = new ConcurrentHashMap<>();
+  }
+
+  /** 合計時間の上位 {@code limit} 件 */
+  public List<QuerySummary> top(int limit) {
+    var merged = new HashMap<String, QuerySummary>();
+    for (var window : List.of(previous, current)) {
+      window.forEach((id, stats) -> merged.merge(id, stats.summary(id), QuerySummary::plus));
+    }
+    return merged.values().stream()
+        .sorted(Comparator.comparingDouble(QuerySummary::totalMs).reversed())
+        .limit(limit)
+        .toList();
+  }
+
+  /** {@link QueryStatsEndpoint} が返す1件 */
+  public record QuerySummary(
+      String fingerprint,
+      String sql,
+      long count,
+      double totalMs,
+      double maxMs,
+      long rowsFetched,
+      long rowsAffected) {
+
+    public double meanMs() {
+      return count == 0 ? 0 : totalMs / count;
+    }
+
+    QuerySummary plus(QuerySummary other) {
+      return new QuerySummary(
+          fingerprint,
+          sql,
+          count + other.count,
+          totalMs + other.totalMs,
+          Math.max(maxMs, other.maxMs),
+          rowsFetched + other.rowsFetched,
+          rowsAffected + other.rowsAffected);
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private static @Nullable String sql(ExecuteContext ctx) {
+    var sql = ctx.sql();
+    if (sql == null && ctx.batchSQL().length > 0) {
+      sql = ctx.batchSQL()[0];
+    }
+    return sql;
+  }
+
+  /** SQLの正規化した形とそのハッシュ */
+  record Fingerprint(String id, String sql) {}
+
+  static Fingerprint fingerprint(String sql) {
+    var normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+    normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+    normalized = PARAMETER_LIST.matcher(normalized).replaceAll("?, ...");
+    normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    try {
+      var digest =
+          MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+      return new Fingerprint(HexFormat.of().formatHex(digest, 0, 6), normalized);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Meters meters(String id, String type) {
+    var key = id + "/" + type;
+    var m = meters.get(key);
+    if (m != null) {
+      return m;
+    }
+    // 上限を超えたら1つにまとめる。まとめた分はtypeの数 (数種類) しか増えない
+    var fingerprint = meters.size() < maximumStatements ? id : OVERFLOW;
+    return meters.computeIfAbsent(
+        fingerprint + "/" + type,
+        k ->
+            new Meters(
+                Timer.builder("jooq.query")
+                    .tag("fingerprint", fingerprint)
+                    .tag("type", type)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry),
+                rows(fingerprint, type, "fetched"),
+                rows(fingerprint, type, "affected")));
+  }
+
+  private DistributionSummary rows(String fingerprint, String type, String kind) {
+    return DistributionSummary.builder("jooq.query.rows")
+        .tag("fingerprint", fingerprint)
+        .tag("type", type)
+        .tag("kind", kind)
+        .register(meterRegistry);
+  }
+
+  private @Nullable Stats stats(Fingerprint fingerprint) {
+    var window = current;
+    var stats = window.get(fingerprint.id());
+    if (stats != null) {
+      return stats;
+    }
+    // 想定外に種類が多いときは上位の集計を諦める (メトリクスは記録する)
+    if (window.size() >= maximumStatements) {
+      return null;
+    }
+    return window.computeIfAbsent(fingerprint.id(), k -> new Stats(fingerprint.sql()));
+  }
+
+  private record Meters(Timer timer, DistributionSummary fetched, DistributionSummary affected) {}
+
+  /** 1回の実行の途中経過。{@link ExecuteContext#data} に入れる */
+  private static final class Execution {
+    final long startedAt;
+    long fetched = 0;
+
+    Execution(long startedAt) {
+      this.startedAt = startedAt;
+    }
+  }
+
+  private static final class Stats {
+    final String sql;
+    final LongAdder count = new LongAdder();
+    final LongAdder totalNanos = new LongAdder();
+    final AtomicLong maxNanos = new AtomicLong();
+    final LongAdder fetched = new LongAdder();
+    final LongAdder affected = new LongAdder();
+
+    Stats(String sql) {
+      this.sql = sql;
+    }
+
+    void record(long nanos, long fetchedRows, long affectedRows) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulateAndGet(nanos, Math::max);
+      fetched.add(fetchedRows);
+      affected.add(affectedRows);
+    }
+
+    QuerySummary summary(String id) {
+      return new QuerySummary(
+          id,
+          sql,
+          count.sum(),
+          totalNanos.sum() / 1e6,
+          maxNanos.get() / 1e6,
+          fetched.sum(),
+          affected.sum());
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.crosscutting;
+
+import com.example.demo.crosscutting.QueryMetricsListener.QuerySummary;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/** {@code /actuator/queries}: 直近で合計時間の長いSQL。例: {@code /actuator/queries?limit=5} */
+@Component
+@Endpoint(id = "queries")
+@AllArgsConstructor
+public class QueryStatsEndpoint {
+  private static final int DEFAULT_LIMIT = 20;
+
+  private final QueryMetricsListener listener;
+
+  // Actuatorはspringの@Nullableで省略可能な引数を判断する
+  @ReadOperation
+  public List<QuerySummary> queries(@Nullable Integer limit) {
+    // Stream.limitは負の数で例外を投げるので0に丸める
+    return listener.top(limit != null ? Math.max(limit, 0) : DEFAULT_LIMIT);
+  }
+}
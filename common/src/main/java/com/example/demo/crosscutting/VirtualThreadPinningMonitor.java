@@ -0,0 +1,101 @@
+package com.example.demo.crosscutting;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+/**
+ * 仮想スレッドがキャリアスレッドに固定された (pinned) ことをJFRで検知する。
+ *
+ * <p>JDK 21ではsynchronizedの中やネイティブ呼び出し中にブロックすると固定され、その間キャリアスレッドが他の仮想スレッドを動かせない。
+ * {@code jvm.threads.virtual.pinned} に場所 (このアプリケーションの一番内側のフレーム) ごとに記録し、場所ごとに初回だけスタックトレースをログに出す。
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+  private static final String EVENT = "jdk.VirtualThreadPinned";
+  private static final String APPLICATION_PACKAGE = "com.example.demo.";
+  private static final int LOGGED_FRAMES = 20;
+
+  private final MeterRegistry meterRegistry;
+  private final RecordingStream stream;
+  private final Set<String> loggedSites = ConcurrentHashMap.newKeySet();
+
+  /** 場所ごとのTimer。場所はコード上の位置なので数は限られる */
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+  public VirtualThreadPinningMonitor(
+      MeterRegistry meterRegistry,
+      @Value("${virtual-threads.pinning.threshold:20ms}") Duration threshold) {
+    this.meterRegistry = meterRegistry;
+    this.stream = new RecordingStream();
+    stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(EVENT, this::onPinned);
+    stream.startAsync();
+    log.info("Virtual thread pinning monitor started: threshold={}", threshold);
+  }
+
+  @PreDestroy
+  public void close() {
+    stream.close();
+  }
+
+  private void onPinned(RecordedEvent event) {
+    var frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : null;
+    var site = frames != null ? site(frames) : "unknown";
+
+    timers.computeIfAbsent(site, this::timer).record(event.getDuration());
+
+    if (loggedSites.add(site)) {
+      var stack =
+          frames == null
+              ? ""
+              : frames.stream()
+                  .limit(LOGGED_FRAMES)
+                  .map(f -> "\n\tat " + frame(f))
+                  .collect(Collectors.joining());
+      log.warn(
+          "Virtual thread pinned for {} ms at {}{}", event.getDuration().toMillis(), site, stack);
+    }
+  }
+
+  private Timer timer(String site) {
+    return Timer.builder("jvm.threads.virtual.pinned")
+        .tag("site", site)
+        .description("Time a virtual thread was pinned to its carrier thread")
+        .register(meterRegistry);
+  }
+
+  /** このアプリケーションの一番内側のフレーム。なければ一番内側のフレーム */
+  private static String site(List<RecordedFrame> frames) {
+    return frames.stream()
+        .filter(f -> f.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE))
+        .findFirst()
+        .or(() -> frames.stream().findFirst())
+        .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName())
+        .orElse("unknown");
+  }
+
+  private static String frame(RecordedFrame f) {
+    return f.getMethod().getType().getName()
+        + "."
+        + f.getMethod().getName()
+        + ":"
+        + f.getLineNumber();
+  }
+}
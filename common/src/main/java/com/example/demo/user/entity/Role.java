@@ -3,4 +3,9 @@ package com.example.demo.user.entity;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
-public record Role(UUID id, String name, OffsetDateTime createdAt) {}
+/**
+ * ロール。
+ *
+ * @param ordinal {@code RoleCatalog} が振る0からの連番。{@link RoleSet} のビットの位置
+ */
+public record Role(UUID id, String name, OffsetDateTime createdAt, int ordinal) {}
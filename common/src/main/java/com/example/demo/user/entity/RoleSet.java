@@ -0,0 +1,108 @@
+package com.example.demo.user.entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * ユーザーのロールの集合。{@link Role#ordinal()} の位置のビットを立てた {@code long} で表す。
+ *
+ * <p>ロールの一覧と権限名は作るときに計算しておくので、読むたびに割り当てない。 DBから読んだユーザーのRoleSetは {@code
+ * RoleCatalog} が組み合わせごとに使い回すので、ユーザーごとには作られない。
+ */
+public final class RoleSet {
+  public static final RoleSet EMPTY = new RoleSet(0L, List.of());
+
+  /** Spring Securityの {@code hasRole} が前提とする接頭辞 */
+  private static final String ROLE_PREFIX = "ROLE_";
+
+  private final long mask;
+  private final List<Role> roles;
+  private final List<String> authorities;
+  private final int hash;
+
+  private RoleSet(long mask, List<Role> roles) {
+    this.mask = mask;
+    this.roles = roles;
+    this.authorities = roles.stream().map(RoleSet::authority).sorted().toList();
+    this.hash = Long.hashCode(mask) * 31 + authorities.hashCode();
+  }
+
+  /** {@code roles} のordinalが64以上なら {@link IllegalArgumentException} */
+  public static RoleSet of(Collection<Role> roles) {
+    if (roles.isEmpty()) {
+      return EMPTY;
+    }
+    long mask = 0L;
+    for (var role : roles) {
+      mask |= bit(role.ordinal());
+    }
+    var sorted = new ArrayList<>(roles);
+    sorted.sort((a, b) -> Integer.compare(a.ordinal(), b.ordinal()));
+    return new RoleSet(mask, List.copyOf(sorted));
+  }
+
+  public static RoleSet of(Role... roles) {
+    return of(Arrays.asList(roles));
+  }
+
+  public static long bit(int ordinal) {
+    if (ordinal < 0 || ordinal >= Long.SIZE) {
+      throw new IllegalArgumentException("Role ordinal out of range: " + ordinal);
+    }
+    return 1L << ordinal;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  public long mask() {
+    return mask;
+  }
+
+  /** ordinalの順 */
+  public List<Role> roles() {
+    return roles;
+  }
+
+  /** Spring Securityの権限名 ({@code ROLE_USER} など)。名前の順 */
+  public List<String> authorities() {
+    return authorities;
+  }
+
+  public boolean isEmpty() {
+    return mask == 0L;
+  }
+
+  public boolean contains(Role role) {
+    return (mask & bit(role.ordinal())) != 0L && roles.contains(role);
+  }
+
+  /** DBのロール名は {@code ROLE_USER} のように接頭辞付きなので、二重に付けない */
+  private static String authority(Role role) {
+    var name = role.name();
+    return name.startsWith(ROLE_PREFIX) ? name : ROLE_PREFIX + name;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  /** ロールの名前が変わることもあるので、ビットだけでなく権限名も比べる */
+  @Override
+  public boolean equals(@Nullable Object o) {
+    return o instanceof RoleSet other
+        && mask == other.mask
+        && hash == other.hash
+        && authorities.equals(other.authorities);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return authorities.toString();
+  }
+}
@@ -3,13 +3,11 @@ package com.example.demo.user.entity;
 import com.example.demo.utils.Either;
 import com.fasterxml.uuid.Generators;
 import java.time.OffsetDateTime;
-import java.util.Set;
 import java.util.UUID;
 import java.util.regex.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.With;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Getter
@@ -22,18 +20,22 @@ public class User {
   @With private boolean enabled;
   @With private OffsetDateTime createdAt;
   @With private OffsetDateTime updatedAt;
-  @With private Set<Role> roles;
+  @With private RoleSet roles;
 
   // ----------------------------------------------------------------------------------------------
   // Factory
 
   public static Either<String, User> of(
-      String username, String rawPasword, String email, OffsetDateTime now, Role role) {
+      String username,
+      String rawPasword,
+      String email,
+      OffsetDateTime now,
+      RoleSet roles,
+      PasswordEncoder encoder) {
     var id = generateUUID();
     var enabled = true;
     var createdAt = now;
     var updatedAt = now;
-    var roles = Set.of(role);
 
     if (!isValidUsername(username)) {
       return Either.left("Invalid username");
@@ -42,7 +44,7 @@ public class User {
     if (!isValidPassword(rawPasword)) {
       return Either.left("Invalid password");
     }
-    var passwordHash = PasswordHash.of(rawPasword);
+    var passwordHash = PasswordHash.of(rawPasword, encoder);
 
     if (!isValidEmail(email)) {
       return Either.left("Invalid email");
@@ -61,21 +63,26 @@ public class User {
       boolean enabled,
       OffsetDateTime createdAt,
       OffsetDateTime updatedAt,
-      Set<Role> roles) {
+      RoleSet roles) {
     return new User(id, username, passwordHash, email, enabled, createdAt, updatedAt, roles);
   }
 
   // ----------------------------------------------------------------------------------------------
   // Mutations
 
-  public Either<String, User> changePassword(String newPassword) {
+  public Either<String, User> changePassword(String newPassword, PasswordEncoder encoder) {
     if (!isValidPassword(newPassword)) {
       return Either.left("Invalid password");
     }
-    var passwordHash = PasswordHash.of(newPassword);
+    var passwordHash = PasswordHash.of(newPassword, encoder);
     return Either.right(this.withPasswordHash(passwordHash));
   }
 
+  /** 現在のパスワードを今の設定でハッシュし直す。認証に成功した平文パスワード以外を渡さないこと */
+  public User rehashPassword(String rawPassword, PasswordEncoder encoder) {
+    return this.withPasswordHash(PasswordHash.of(rawPassword, encoder));
+  }
+
   // ----------------------------------------------------------------------------------------------
   // Validation
 
@@ -110,14 +117,11 @@ public class User {
   public static class PasswordHash {
     private final String hash;
 
-    // 直接依存しちゃっても問題ない
-    private static final PasswordEncoder encoder = new BCryptPasswordEncoder();
-
     private PasswordHash(String hash) {
       this.hash = hash;
     }
 
-    private static PasswordHash of(String rawPassword) {
+    private static PasswordHash of(String rawPassword, PasswordEncoder encoder) {
       return new PasswordHash(encoder.encode(rawPassword));
     }
 
@@ -125,10 +129,15 @@ public class User {
       return new PasswordHash(hash);
     }
 
-    public boolean matches(String rawPassword) {
+    public boolean matches(String rawPassword, PasswordEncoder encoder) {
       return encoder.matches(rawPassword, this.hash);
     }
 
+    /** アルゴリズムやコストが現在の設定より古ければtrue */
+    public boolean needsRehash(PasswordEncoder encoder) {
+      return encoder.upgradeEncoding(this.hash);
+    }
+
     public String asString() {
       return this.hash;
     }
@@ -0,0 +1,29 @@
+package com.example.demo.user.repository;
+
+import java.util.List;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.ResultQuery;
+import org.jooq.Select;
+
+/**
+ * 組み立てとレンダリングを済ませたSELECT。呼び出しごとにはバインド値だけ渡す。
+ *
+ * <p>SQLの文字列が毎回同じなので、pgjdbcのステートメントキャッシュが効いてPostgreSQLでの解析も省ける ({@code prepareThreshold})。
+ * 結果はテンプレートのフィールドで読むので、{@code multiset} のconverterなどもそのまま使える。
+ *
+ * @param sql バインド変数を {@code ?} にしたSQL
+ * @param fields テンプレートのSELECT句
+ */
+record RenderedQuery(String sql, List<Field<?>> fields) {
+
+  static RenderedQuery of(DSLContext dsl, Select<?> template) {
+    return new RenderedQuery(dsl.render(template), List.copyOf(template.getSelect()));
+  }
+
+  /** {@code bindings} はテンプレートのバインド変数と同じ順で渡す */
+  ResultQuery<Record> bind(DSLContext dsl, Object... bindings) {
+    return dsl.resultQuery(sql, bindings).coerce(fields);
+  }
+}
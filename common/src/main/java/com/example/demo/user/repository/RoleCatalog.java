@@ -0,0 +1,235 @@
+package com.example.demo.user.repository;
+
+import static com.example.demo.jooq.tables.Roles.ROLES;
+
+import com.example.demo.crosscutting.InvalidationBus;
+import com.example.demo.user.entity.Role;
+import com.example.demo.user.entity.RoleSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.jooq.DSLContext;
+import org.jspecify.annotations.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code roles} テーブルの全件をメモリに持つ。数件しかなく、ほとんど変わらないので、ユーザーのクエリではロールのidだけを読んでここで引く。
+ *
+ * <p>中身は不変の {@link Snapshot} で、変更があったら作り直して差し替える (コピーオンライト)。読む側はロックを取らない。 {@code roles}
+ * への変更はトリガー (V6) が {@link InvalidationBus} のトピック {@value #TOPIC} に通知するので、どのノードでも作り直される。
+ *
+ * <p>各ロールには0からの連番 ({@link Role#ordinal()}) を振る。作り直しても既存のロールの番号は変えないので、{@link RoleSet}
+ * のビットを覚えている側を無効化しなくてよい。
+ */
+@Slf4j
+@Component
+public class RoleCatalog {
+  /** キーは使わず、常に全件の無効化 */
+  public static final String TOPIC = "role";
+
+  /** サインアップや、ロールを指定しないインポートで付けるロール */
+  public static final String DEFAULT_ROLE = "ROLE_USER";
+
+  private final DSLContext dsl;
+  private final ReentrantLock refreshLock = new ReentrantLock();
+  private volatile Snapshot snapshot;
+
+  public RoleCatalog(DSLContext dsl, InvalidationBus invalidationBus) {
+    this.dsl = dsl;
+    this.snapshot = load(Snapshot.EMPTY);
+    invalidationBus.subscribe(
+        TOPIC,
+        new InvalidationBus.Listener() {
+          @Override
+          public void invalidate(Set<String> keys) {
+            refresh();
+          }
+
+          @Override
+          public void invalidateAll() {
+            refresh();
+          }
+        });
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  public Snapshot snapshot() {
+    return snapshot;
+  }
+
+  /** DBから読み直す */
+  public void refresh() {
+    // DBを待つ間に仮想スレッドのキャリアを占有しないよう、synchronizedではなくReentrantLock
+    refreshLock.lock();
+    try {
+      snapshot = load(snapshot);
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  /**
+   * ある時点のロールの一覧。不変。
+   *
+   * <p>削除されたロールのordinalは欠番にして、再利用しない。{@link RoleSet} はビットの組み合わせごとに1つだけ作って使い回す。
+   * ロールが少なければ (普通は数件) ビットをそのまま添字にした配列で引くので、引くときに割り当てない。
+   */
+  public static final class Snapshot {
+    static final Snapshot EMPTY = new Snapshot(List.of());
+
+    /** 配列で引くordinalの数の上限。配列の長さは2のこの数乗 */
+    private static final int MAX_ARRAY_BITS = 10;
+
+    private final List<@Nullable Role> byOrdinal;
+    private final Map<UUID, Role> byId;
+    private final Map<String, Role> byName;
+    private final @Nullable AtomicReferenceArray<RoleSet> setsByMask;
+    private final Map<Long, RoleSet> sets = new ConcurrentHashMap<>();
+
+    // ベンチマーク (UserRecordMapperBenchmark) から呼ぶのでパッケージプライベート
+    Snapshot(List<@Nullable Role> byOrdinal) {
+      this.byOrdinal = Collections.unmodifiableList(new ArrayList<>(byOrdinal));
+      var byId = new HashMap<UUID, Role>();
+      var byName = new HashMap<String, Role>();
+      for (var role : byOrdinal) {
+        if (role != null) {
+          byId.put(role.id(), role);
+          byName.put(role.name(), role);
+        }
+      }
+      this.byId = Map.copyOf(byId);
+      this.byName = Map.copyOf(byName);
+      this.setsByMask =
+          byOrdinal.size() <= MAX_ARRAY_BITS
+              ? new AtomicReferenceArray<>(1 << byOrdinal.size())
+              : null;
+    }
+
+    public @Nullable Role byId(UUID id) {
+      return byId.get(id);
+    }
+
+    public @Nullable Role byName(String name) {
+      return byName.get(name);
+    }
+
+    /** マイグレーションで入れているはずのロール用。なければ {@link IllegalStateException} */
+    public Role require(String name) {
+      var role = byName.get(name);
+      if (role == null) {
+        throw new IllegalStateException("Role not found: " + name);
+      }
+      return role;
+    }
+
+    public @Nullable Role byOrdinal(int ordinal) {
+      return ordinal >= 0 && ordinal < byOrdinal.size() ? byOrdinal.get(ordinal) : null;
+    }
+
+    /** 振ったordinalの数 (欠番を含む) */
+    public int size() {
+      return byOrdinal.size();
+    }
+
+    /**
+     * {@code roleIds} のロールの集合。
+     *
+     * <p>知らないidは飛ばす。ロールを追加した直後の通知待ちか、以前のサインアップが入れた存在しないロールのid (user_rolesに外部キーがない)。
+     * どちらも権限を少なく見積もる側なので安全。
+     */
+    public RoleSet roleSet(Iterable<UUID> roleIds) {
+      long mask = 0L;
+      for (var id : roleIds) {
+        var role = byId.get(id);
+        if (role != null) {
+          mask |= RoleSet.bit(role.ordinal());
+        }
+      }
+      return roleSet(mask);
+    }
+
+    /** {@link #roleSet(Iterable)} と同じ。DBから読んだ配列をそのまま渡す用で、割り当てない */
+    public RoleSet roleSet(UUID[] roleIds) {
+      long mask = 0L;
+      for (var id : roleIds) {
+        var role = byId.get(id);
+        if (role != null) {
+          mask |= RoleSet.bit(role.ordinal());
+        }
+      }
+      return roleSet(mask);
+    }
+
+    public RoleSet roleSet(Role role) {
+      return roleSet(RoleSet.bit(role.ordinal()));
+    }
+
+    /** {@code mask} のビットはこのスナップショットのロールのordinalであること */
+    public RoleSet roleSet(long mask) {
+      if (mask == 0L) {
+        return RoleSet.EMPTY;
+      }
+      var array = setsByMask;
+      if (array == null || mask >= array.length()) {
+        return sets.computeIfAbsent(mask, this::createRoleSet);
+      }
+      int index = (int) mask;
+      var set = array.get(index);
+      if (set == null) {
+        set = createRoleSet(mask);
+        // 競合しても中身は同じなので、先に入った方を使う
+        if (!array.compareAndSet(index, null, set)) {
+          set = Objects.requireNonNull(array.get(index));
+        }
+      }
+      return set;
+    }
+
+    private RoleSet createRoleSet(long mask) {
+      var roles = new ArrayList<Role>(Long.bitCount(mask));
+      for (long rest = mask; rest != 0L; rest &= rest - 1) {
+        int ordinal = Long.numberOfTrailingZeros(rest);
+        var role = byOrdinal(ordinal);
+        if (role == null) {
+          throw new IllegalArgumentException("Unknown role ordinal: " + ordinal);
+        }
+        roles.add(role);
+      }
+      return RoleSet.of(roles);
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private Snapshot load(Snapshot previous) {
+    var records = dsl.selectFrom(ROLES).orderBy(ROLES.CREATED_AT, ROLES.ID).fetch();
+    var byOrdinal = new ArrayList<@Nullable Role>(Collections.nCopies(previous.size(), null));
+    for (var r : records) {
+      var known = previous.byId(r.getId());
+      int ordinal = known != null ? known.ordinal() : byOrdinal.size();
+      if (ordinal >= Long.SIZE) {
+        throw new IllegalStateException("RoleSet supports at most 64 roles");
+      }
+      var role = new Role(r.getId(), r.getName(), r.getCreatedAt(), ordinal);
+      if (known != null) {
+        byOrdinal.set(ordinal, role);
+      } else {
+        byOrdinal.add(role);
+      }
+    }
+    var next = new Snapshot(byOrdinal);
+    log.info("Role catalog loaded: {}", next.byName.keySet());
+    return next;
+  }
+}
@@ -0,0 +1,155 @@
+package com.example.demo.user.repository;
+
+import com.example.demo.crosscutting.InvalidationBus;
+import com.example.demo.user.entity.User;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link UserRepository#findByUsername} のリードスルーキャッシュ。
+ *
+ * <p>存在しないユーザー名も短いTTLで覚えておき（ネガティブキャッシュ）、 総当たりのログイン試行がそのままDBに届かないようにする。
+ * 追い出しはCaffeineのW-TinyLFU。 無効化は {@link InvalidationBus} で他ノードにも伝える。
+ *
+ * <p>{@code Cache.get(key, loader)} はloaderをConcurrentHashMapのロック (synchronized) の中で実行するので、
+ * 仮想スレッドだとDBを待つ間キャリアスレッドを占有してしまう。そのため読み込み中のFutureだけを入れ、DBへの問い合わせはロックの外で行う。
+ */
+@Slf4j
+@Component
+public class UserCache {
+  public static final String CACHE_NAME = "users";
+
+  /** キーはユーザー名 */
+  public static final String TOPIC = "user";
+
+  private final boolean enabled;
+  private final AsyncCache<String, Optional<User>> cache;
+  private final Timer loadTimer;
+  private final InvalidationBus invalidationBus;
+
+  public UserCache(
+      MeterRegistry meterRegistry,
+      InvalidationBus invalidationBus,
+      @Value("${user.cache.enabled:true}") boolean enabled,
+      @Value("${user.cache.ttl:60s}") Duration ttl,
+      @Value("${user.cache.negative-ttl:5s}") Duration negativeTtl,
+      @Value("${user.cache.maximum-size:10000}") long maximumSize) {
+    this.enabled = enabled;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new PositiveNegativeExpiry(ttl, negativeTtl))
+            .recordStats()
+            .buildAsync();
+    this.loadTimer =
+        Timer.builder("cache.load.latency")
+            .tag("cache", CACHE_NAME)
+            .description("Time spent loading a cache miss from the database")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+
+    this.invalidationBus = invalidationBus;
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    invalidationBus.subscribe(
+        TOPIC,
+        new InvalidationBus.Listener() {
+          @Override
+          public void invalidate(Set<String> usernames) {
+            cache.synchronous().invalidateAll(usernames);
+          }
+
+          @Override
+          public void invalidateAll() {
+            cache.synchronous().invalidateAll();
+          }
+        });
+    log.info(
+        "User cache: enabled={}, ttl={}, negativeTtl={}, maximumSize={}",
+        enabled,
+        ttl,
+        negativeTtl,
+        maximumSize);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  public Optional<User> get(String username, Function<String, Optional<User>> loader) {
+    if (!enabled) {
+      return loader.apply(username);
+    }
+    var cached = cache.getIfPresent(username);
+    if (cached == null) {
+      var loading = new CompletableFuture<Optional<User>>();
+      cached = cache.asMap().putIfAbsent(username, loading);
+      if (cached == null) {
+        // 同じユーザー名を同時に読みに来たスレッドはこのFutureを待つ
+        try {
+          var sample = Timer.start();
+          var user = loader.apply(username);
+          sample.stop(loadTimer);
+          loading.complete(user);
+          return user;
+        } catch (Throwable e) {
+          // Errorでも完了させないと、待っているスレッドとこのキーの後続が永久に待つ。失敗したFutureはCaffeineが取り除く
+          loading.completeExceptionally(e);
+          throw e;
+        }
+      }
+    }
+    try {
+      return cached.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /** このノードのエントリを消し、他ノードにも通知する */
+  public void invalidate(String username) {
+    cache.synchronous().invalidate(username);
+    invalidationBus.publish(TOPIC, username);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private record PositiveNegativeExpiry(Duration ttl, Duration negativeTtl)
+      implements Expiry<String, Optional<User>> {
+
+    @Override
+    public long expireAfterCreate(String key, Optional<User> value, long currentTime) {
+      return (value.isPresent() ? ttl : negativeTtl).toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String key, Optional<User> value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        String key, Optional<User> value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
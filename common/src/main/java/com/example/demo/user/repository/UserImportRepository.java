@@ -0,0 +1,173 @@
+package com.example.demo.user.repository;
+
+import static com.example.demo.jooq.tables.UserImportCheckpoints.USER_IMPORT_CHECKPOINTS;
+
+import com.example.demo.crosscutting.OperationMetrics;
+import com.example.demo.user.entity.User;
+import com.example.demo.user.repository.UserRepository.InsertResult;
+import java.io.StringReader;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.jspecify.annotations.Nullable;
+import org.postgresql.PGConnection;
+import org.springframework.stereotype.Repository;
+
+/**
+ * ユーザーの一括インポートの書き込み。
+ *
+ * <p>1バッチを1トランザクションで、一時テーブルへの {@code COPY} → {@code INSERT ... SELECT ... ON CONFLICT DO NOTHING}
+ * の順に入れる。usersへ直接COPYしないのは、1行でも一意制約に違反するとバッチ全体が失敗するため。入らなかった行は、どの制約に当たったかを返す。
+ */
+@Repository
+@AllArgsConstructor
+public class UserImportRepository {
+  private static final String METRIC = "user.repository";
+  private static final String STAGING = "user_import_staging";
+
+  private final DSLContext dsl;
+  private final OperationMetrics metrics;
+
+  // --------------------------------------------------------------------------------------------
+  // Queries
+
+  /** {@code job} で最後に取り込んだ行。まだなければ0 */
+  public long findCheckpoint(String job) {
+    return dsl.select(USER_IMPORT_CHECKPOINTS.LINE)
+        .from(USER_IMPORT_CHECKPOINTS)
+        .where(USER_IMPORT_CHECKPOINTS.JOB.eq(job))
+        .fetchOptional(USER_IMPORT_CHECKPOINTS.LINE)
+        .orElse(0L);
+  }
+
+  // --------------------------------------------------------------------------------------------
+  // Commands
+
+  /** 入力の {@code line} 行目のユーザー */
+  public record StagedUser(long line, User user) {}
+
+  /** 一意制約に違反して入らなかった行 */
+  public record Rejected(long line, String username, InsertResult.Conflict conflict) {}
+
+  /**
+   * {@code users} を1トランザクションで入れ、同じトランザクションで {@code job} のチェックポイントを {@code lastLine} に進める。
+   *
+   * @param job nullならチェックポイントを残さない
+   * @param failed このバッチで、ここに来る前にエラーになった行数。チェックポイントの集計用
+   */
+  public List<Rejected> load(
+      List<StagedUser> users, @Nullable String job, long lastLine, long failed) {
+    return metrics.record(METRIC, "importBatch", () -> loadInternal(users, job, lastLine, failed));
+  }
+
+  private List<Rejected> loadInternal(
+      List<StagedUser> users, @Nullable String job, long lastLine, long failed) {
+    return dsl.transactionResult(
+        tx -> {
+          var ctx = tx.dsl();
+          List<Rejected> rejected = List.of();
+          if (!users.isEmpty()) {
+            ctx.execute(
+                "CREATE TEMP TABLE "
+                    + STAGING
+                    + " (line BIGINT NOT NULL, id UUID NOT NULL, username VARCHAR(255) NOT NULL,"
+                    + " password VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL,"
+                    + " role_id UUID, created_at TIMESTAMP WITH TIME ZONE NOT NULL)"
+                    + " ON COMMIT DROP");
+            copy(ctx, users);
+            // 同じバッチ内の重複は先の行を優先する
+            ctx.execute(
+                "INSERT INTO users (id, username, password, email, enabled, created_at, updated_at)"
+                    + " SELECT id, username, password, email, TRUE, created_at, created_at FROM "
+                    + STAGING
+                    + " ORDER BY line ON CONFLICT DO NOTHING");
+            ctx.execute(
+                "INSERT INTO user_roles (user_id, role_id, created_at)"
+                    + " SELECT s.id, s.role_id, s.created_at FROM "
+                    + STAGING
+                    + " s JOIN users u ON u.id = s.id WHERE s.role_id IS NOT NULL");
+            rejected =
+                ctx.resultQuery(
+                        "SELECT s.line, s.username, EXISTS (SELECT 1 FROM users u"
+                            + " WHERE u.username = s.username AND u.id <> s.id) AS username_taken"
+                            + " FROM "
+                            + STAGING
+                            + " s WHERE NOT EXISTS (SELECT 1 FROM users u WHERE u.id = s.id)"
+                            + " ORDER BY s.line")
+                    .fetch(
+                        r ->
+                            new Rejected(
+                                r.get(0, Long.class),
+                                r.get(1, String.class),
+                                Boolean.TRUE.equals(r.get(2, Boolean.class))
+                                    ? InsertResult.Conflict.USERNAME
+                                    : InsertResult.Conflict.EMAIL));
+          }
+          if (job != null) {
+            long imported = (long) users.size() - rejected.size();
+            saveCheckpoint(ctx, job, lastLine, imported, failed + rejected.size());
+          }
+          return rejected;
+        });
+  }
+
+  private static void copy(DSLContext ctx, List<StagedUser> users) {
+    var csv = new StringBuilder();
+    for (var staged : users) {
+      var user = staged.user();
+      var role = user.getRoles().roles().stream().findFirst();
+      csv.append(staged.line())
+          .append(',')
+          .append(user.getId())
+          .append(',')
+          .append(quote(user.getUsername()))
+          .append(',')
+          .append(quote(user.getPasswordHash().asString()))
+          .append(',')
+          .append(quote(user.getEmail()))
+          .append(',')
+          .append(role.map(r -> r.id().toString()).orElse(""))
+          .append(',')
+          .append(user.getCreatedAt())
+          .append('\n');
+    }
+    ctx.connection(
+        connection ->
+            connection
+                .unwrap(PGConnection.class)
+                .getCopyAPI()
+                .copyIn(
+                    "COPY "
+                        + STAGING
+                        + " (line, id, username, password, email, role_id, created_at)"
+                        + " FROM STDIN (FORMAT csv)",
+                    new StringReader(csv.toString())));
+  }
+
+  private static String quote(String value) {
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+  private static void saveCheckpoint(
+      DSLContext ctx, String job, long line, long imported, long failed) {
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    ctx.insertInto(USER_IMPORT_CHECKPOINTS)
+        .set(USER_IMPORT_CHECKPOINTS.JOB, job)
+        .set(USER_IMPORT_CHECKPOINTS.LINE, line)
+        .set(USER_IMPORT_CHECKPOINTS.IMPORTED, imported)
+        .set(USER_IMPORT_CHECKPOINTS.FAILED, failed)
+        .set(USER_IMPORT_CHECKPOINTS.UPDATED_AT, now)
+        .onConflict(USER_IMPORT_CHECKPOINTS.JOB)
+        .doUpdate()
+        .set(USER_IMPORT_CHECKPOINTS.LINE, line)
+        .set(
+            USER_IMPORT_CHECKPOINTS.IMPORTED,
+            USER_IMPORT_CHECKPOINTS.IMPORTED.plus(DSL.val(imported)))
+        .set(USER_IMPORT_CHECKPOINTS.FAILED, USER_IMPORT_CHECKPOINTS.FAILED.plus(DSL.val(failed)))
+        .set(USER_IMPORT_CHECKPOINTS.UPDATED_AT, now)
+        .execute();
+  }
+}
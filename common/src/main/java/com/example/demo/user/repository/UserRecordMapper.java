@@ -0,0 +1,74 @@
+package com.example.demo.user.repository;
+
+import static com.example.demo.jooq.tables.UserRoles.USER_ROLES;
+import static com.example.demo.jooq.tables.Users.USERS;
+import static org.jooq.impl.DSL.array;
+import static org.jooq.impl.DSL.select;
+
+import com.example.demo.user.entity.RoleSet;
+import com.example.demo.user.entity.User;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+
+/**
+ * {@link UserRepository#selectUser} の1行を {@link User} にする。
+ *
+ * <p>{@code record.into(USERS)} だと {@code UsersRecord} に一度コピーしてから読むうえ、列を名前で探す。 SELECT句は
+ * {@link #FIELDS} で固定しているので、ここでは添字で直接読んでそのまま {@link User} を作る。ロールは {@link RoleCatalog}
+ * が使い回す {@link RoleSet} なので、1行あたりの割り当ては {@link User} とパスワードのハッシュだけ。
+ */
+final class UserRecordMapper implements RecordMapper<Record, User> {
+  /** ユーザーのロールのid。ロールの中身は {@link RoleCatalog} で引くので、rolesはJOINしない */
+  static final Field<UUID[]> ROLE_IDS =
+      array(select(USER_ROLES.ROLE_ID).from(USER_ROLES).where(USER_ROLES.USER_ID.eq(USERS.ID)))
+          .as("role_ids");
+
+  /** SELECT句。下の添字と同じ順 */
+  static final List<Field<?>> FIELDS =
+      List.of(
+          USERS.ID,
+          USERS.USERNAME,
+          USERS.PASSWORD,
+          USERS.EMAIL,
+          USERS.ENABLED,
+          USERS.CREATED_AT,
+          USERS.UPDATED_AT,
+          ROLE_IDS);
+
+  private static final int ID = 0;
+  private static final int USERNAME = 1;
+  private static final int PASSWORD = 2;
+  private static final int EMAIL = 3;
+  private static final int ENABLED = 4;
+  private static final int CREATED_AT = 5;
+  private static final int UPDATED_AT = 6;
+  private static final int ROLES = 7;
+
+  private final RoleCatalog roleCatalog;
+
+  UserRecordMapper(RoleCatalog roleCatalog) {
+    this.roleCatalog = roleCatalog;
+  }
+
+  @Override
+  public User map(Record record) {
+    return map(record, roleCatalog.snapshot());
+  }
+
+  static User map(Record record, RoleCatalog.Snapshot catalog) {
+    var roleIds = (UUID[]) record.get(ROLES);
+    return User.unsafeOf(
+        (UUID) record.get(ID),
+        (String) record.get(USERNAME),
+        User.PasswordHash.unsafeOf((String) record.get(PASSWORD)),
+        (String) record.get(EMAIL),
+        (Boolean) record.get(ENABLED),
+        (OffsetDateTime) record.get(CREATED_AT),
+        (OffsetDateTime) record.get(UPDATED_AT),
+        roleIds != null ? catalog.roleSet(roleIds) : RoleSet.EMPTY);
+  }
+}
@@ -1,62 +1,358 @@
 package com.example.demo.user.repository;
 
-import static com.example.demo.jooq.tables.Roles.ROLES;
 import static com.example.demo.jooq.tables.UserRoles.USER_ROLES;
 import static com.example.demo.jooq.tables.Users.USERS;
-import static org.jooq.impl.DSL.multiset;
+import static org.jooq.impl.DSL.any;
+import static org.jooq.impl.DSL.insertInto;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.noCondition;
+import static org.jooq.impl.DSL.param;
+import static org.jooq.impl.DSL.row;
 import static org.jooq.impl.DSL.select;
+import static org.jooq.impl.DSL.values;
 
-import com.example.demo.jooq.tables.records.RolesRecord;
-import com.example.demo.jooq.tables.records.UserRolesRecord;
+import com.example.demo.crosscutting.BatchLoader;
+import com.example.demo.crosscutting.OperationMetrics;
 import com.example.demo.jooq.tables.records.UsersRecord;
-import com.example.demo.user.entity.Role;
+import com.example.demo.user.entity.RoleSet;
 import com.example.demo.user.entity.User;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Row2;
+import org.jooq.SelectConditionStep;
 import org.jooq.exception.DataAccessException;
+import org.jspecify.annotations.Nullable;
+import org.postgresql.util.PSQLException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 @Slf4j
 @Repository
-@AllArgsConstructor
 public class UserRepository {
+  private static final String METRIC = "user.repository";
 
   private final DSLContext dsl;
+  private final UserCache userCache;
+  private final RoleCatalog roleCatalog;
+  private final OperationMetrics metrics;
+
+  /** ログインのたびに呼ばれるので、ASTの組み立てとレンダリングを起動時に済ませておく */
+  private final RenderedQuery findByUsernameQuery;
+
+  private final RenderedQuery findAllByUsernamesQuery;
+
+  private final UserRecordMapper userMapper;
+
+  /** キャッシュミスした {@link #findByUsername} をまとめる。窓が0ならnullで、1件ずつ読む */
+  private final @Nullable BatchLoader<String, User> usernameLoader;
+
+  public UserRepository(
+      DSLContext dsl,
+      UserCache userCache,
+      RoleCatalog roleCatalog,
+      OperationMetrics metrics,
+      @Value("${user.repository.batch-window:0ms}") Duration batchWindow,
+      @Value("${user.repository.max-batch-size:100}") int maxBatchSize) {
+    this.dsl = dsl;
+    this.userCache = userCache;
+    this.roleCatalog = roleCatalog;
+    this.metrics = metrics;
+    this.userMapper = new UserRecordMapper(roleCatalog);
+    this.findByUsernameQuery =
+        RenderedQuery.of(dsl, selectUser(dsl, USERS.USERNAME.eq(param("username", String.class))));
+    this.findAllByUsernamesQuery =
+        RenderedQuery.of(
+            dsl, selectUser(dsl, USERS.USERNAME.eq(any(param("usernames", String[].class)))));
+    this.usernameLoader =
+        batchWindow.isPositive()
+            ? new BatchLoader<>(this::findAllByUsernames, batchWindow, maxBatchSize)
+            : null;
+  }
 
   // --------------------------------------------------------------------------------------------
   // Queries
 
   public Optional<User> findByUsername(String username) {
-    var query =
-        dsl.select(
-                USERS.asterisk(),
-                multiset(
-                        select(ROLES.asterisk())
-                            .from(ROLES.join(USER_ROLES).on(ROLES.ID.eq(USER_ROLES.ROLE_ID)))
-                            .where(USER_ROLES.USER_ID.eq(USERS.ID)))
-                    .as("roles")
-                    .convertFrom(r -> r.into(ROLES)))
-            .from(USERS)
-            .where(USERS.USERNAME.eq(username));
-    var record = query.fetchOne();
-
-    var userR = record.into(USERS);
-    @SuppressWarnings("unchecked")
-    var roleRs = (List<RolesRecord>) record.get("roles");
-
-    if (userR != null) {
-      var user = fromRecord(userR, new TreeSet<>(roleRs));
-      return Optional.of(user);
+    return userCache.get(username, this::fetchByUsername);
+  }
+
+  /** キャッシュミスのときだけ呼ばれるので、Timerはこちらに付ける。まとめて読むときは窓で待つ時間も含む */
+  private Optional<User> fetchByUsername(String username) {
+    var loader = usernameLoader;
+    return metrics.record(
+        METRIC,
+        "findByUsername",
+        () -> loader != null ? loader.load(username) : fetchByUsernameInternal(username));
+  }
+
+  private Optional<User> fetchByUsernameInternal(String username) {
+    return Optional.ofNullable(findByUsernameQuery.bind(dsl, username).fetchOne(userMapper));
+  }
+
+  /**
+   * ユーザー名 → ユーザー。存在しないユーザー名はキーに含まれない。
+   *
+   * <p>{@code username = ANY(?)} の1回のクエリで、ロールもまとめて読む。{@link UserCache} は通さない。
+   */
+  public Map<String, User> findAllByUsernames(Collection<String> usernames) {
+    if (usernames.isEmpty()) {
+      return Map.of();
+    }
+    return metrics.record(
+        METRIC,
+        "findAllByUsernames",
+        () ->
+            findAllByUsernamesQuery
+                .bind(dsl, (Object) usernames.toArray(String[]::new))
+                .fetch(userMapper)
+                .stream()
+                .collect(Collectors.toMap(User::getUsername, Function.identity())));
+  }
+
+  /** id → ユーザー。存在しないidはキーに含まれない。{@link #findAllByUsernames} と同じく1回のクエリで読む */
+  public Map<UUID, User> findAllByIds(Collection<UUID> ids) {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+    return metrics.record(
+        METRIC,
+        "findAllByIds",
+        () ->
+            selectUser(dsl, USERS.ID.eq(any(ids.toArray(UUID[]::new)))).fetch(userMapper).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity())));
+  }
+
+  /**
+   * {@code after} より後のユーザーをidの順に最大 {@code limit} 件 (キーセットページング)。
+   *
+   * <p>1ページ分をまとめて読んで返す。呼び出し側が遅い相手 (HTTPのクライアントなど) に書いている間、コネクションを握らないように。
+   *
+   * @param after nullなら先頭から
+   */
+  public List<User> findAfter(@Nullable UUID after, int limit) {
+    var condition = after != null ? USERS.ID.gt(after) : noCondition();
+    var roles = roleCatalog.snapshot();
+    return metrics.record(
+        METRIC,
+        "findAfter",
+        () ->
+            selectUser(dsl, condition)
+                .orderBy(USERS.ID)
+                .limit(limit)
+                .fetch(record -> UserRecordMapper.map(record, roles)));
+  }
+
+  /**
+   * {@link #search} の1ページ。
+   *
+   * @param next 次のページの {@code after}。最後のページならnull
+   */
+  public record Page(List<User> users, @Nullable Cursor next) {}
+
+  /**
+   * {@link #search} のページの位置。{@code (key, id)} がこれより後のユーザーから返す。
+   *
+   * <p>APIでは {@link #encode()} した文字列で受け渡す。ユーザー名かメールアドレスを含むので、利用者が読めない形にはしていない (管理者向け)。
+   *
+   * @param key どちらの順で読んでいるか
+   * @param value {@code key} の列の値
+   */
+  public record Cursor(Key key, String value, UUID id) {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final int UUID_LENGTH = 36;
+
+    /** {@link #search} の並び順 */
+    public enum Key {
+      /** {@code (username, id)} の順。前方一致ならユーザー名で一致したユーザー */
+      USERNAME('u'),
+      /** {@code (email, id)} の順。前方一致でメールアドレスだけが一致したユーザー */
+      EMAIL('e');
+
+      private final char tag;
+
+      Key(char tag) {
+        this.tag = tag;
+      }
+
+      private static Key of(char tag) {
+        for (var key : values()) {
+          if (key.tag == tag) {
+            return key;
+          }
+        }
+        throw new IllegalArgumentException("Malformed cursor");
+      }
+    }
+
+    public static Cursor of(Key key, User user) {
+      return new Cursor(
+          key, key == Key.USERNAME ? user.getUsername() : user.getEmail(), user.getId());
+    }
+
+    /** {@code <u|e>id:value} をURLセーフなBase64にする */
+    public String encode() {
+      return ENCODER.encodeToString(
+          (key.tag + id.toString() + ":" + value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * {@link #encode()} の逆
+     *
+     * @throws IllegalArgumentException 形式が正しくない
+     */
+    public static Cursor decode(String value) {
+      var text = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+      if (text.length() <= UUID_LENGTH + 1 || text.charAt(UUID_LENGTH + 1) != ':') {
+        throw new IllegalArgumentException("Malformed cursor");
+      }
+      return new Cursor(
+          Key.of(text.charAt(0)),
+          text.substring(UUID_LENGTH + 2),
+          UUID.fromString(text.substring(1, UUID_LENGTH + 1)));
+    }
+  }
+
+  /**
+   * ユーザーを {@code (username, id)} の順に最大 {@code limit} 件返す (キーセットページング)。
+   *
+   * <p>並び順はバイト順 ({@code COLLATE "C"})。{@code (username COLLATE "C", id)} のインデックス (V5)
+   * をその順に読むので、OFFSETと違って読み飛ばす行がなく、何ページ目でも1ページ分のコストで済む。
+   *
+   * <p>{@code prefix} を指定すると、先にユーザー名が一致するユーザーをユーザー名の順に、続けてメールアドレスだけが一致するユーザーをメールアドレスの順に返す
+   * ({@link #searchByPrefix})。ロールはページのユーザーの分を1回のクエリでまとめて読む。
+   *
+   * @param prefix ユーザー名かメールアドレスがこれで始まるユーザーだけを返す。nullか空なら全員
+   * @param after nullなら先頭から
+   * @throws IllegalArgumentException {@code prefix} がないのに {@link Cursor.Key#EMAIL} のカーソルを渡した
+   */
+  public Page search(@Nullable String prefix, @Nullable Cursor after, int limit) {
+    return metrics.record(METRIC, "search", () -> searchInternal(prefix, after, limit));
+  }
+
+  /** 並び順。V5のインデックスと同じ式 */
+  private static final Field<String> USERNAME_BYTES = USERS.USERNAME.collate("C");
+
+  private static final Field<String> EMAIL_BYTES = USERS.EMAIL.collate("C");
+
+  private Page searchInternal(@Nullable String prefix, @Nullable Cursor after, int limit) {
+    // 1件多く読んで、次のページがあるかを判定する
+    var records = new ArrayList<UsersRecord>(limit + 1);
+    int byUsername;
+    if (prefix == null || prefix.isEmpty()) {
+      if (after != null && after.key() != Cursor.Key.USERNAME) {
+        throw new IllegalArgumentException("Cursor is not for this query");
+      }
+      records.addAll(firstBy(USERNAME_BYTES, afterCursor(USERNAME_BYTES, after), limit + 1));
+      byUsername = records.size();
     } else {
-      return Optional.empty();
+      byUsername = searchByPrefix(prefix, after, limit + 1, records);
+    }
+    var hasNext = records.size() > limit;
+    var page = hasNext ? records.subList(0, limit) : records;
+
+    var roleIds = findRoleIdsByUserIds(page.stream().map(UsersRecord::getId).toList());
+    var catalog = roleCatalog.snapshot();
+    var users =
+        page.stream()
+            .map(r -> fromRecord(r, catalog.roleSet(roleIds.getOrDefault(r.getId(), List.of()))))
+            .toList();
+    // ページの最後がどちらの順で読んだ行か
+    var key = users.size() <= byUsername ? Cursor.Key.USERNAME : Cursor.Key.EMAIL;
+    return new Page(users, hasNext ? Cursor.of(key, users.getLast()) : null);
+  }
+
+  /**
+   * ユーザー名かメールアドレスが {@code prefix} で始まるユーザーを最大 {@code limit} 件、{@code records} に追加する。
+   *
+   * <p>まずユーザー名の範囲を {@code (username, id)} のインデックスで、足りなければ続けてメールアドレスの範囲を {@code (email, id)}
+   * のインデックスで読む。どちらもインデックスをその順に読んで {@code limit} 件で止まるので、一致する行がいくら多くても読むのは1ページ分だけ。
+   * ただしメールアドレスの範囲では、ユーザー名でも一致する (前半で返した) 行を読み飛ばす。
+   *
+   * @return {@code records} のうちユーザー名で一致した件数
+   */
+  private int searchByPrefix(
+      String prefix, @Nullable Cursor after, int limit, List<UsersRecord> records) {
+    var byUsername = startsWithBytes(USERNAME_BYTES, prefix);
+    if (after == null || after.key() == Cursor.Key.USERNAME) {
+      records.addAll(
+          firstBy(USERNAME_BYTES, afterCursor(USERNAME_BYTES, after).and(byUsername), limit));
+    }
+    int count = records.size();
+    if (count < limit) {
+      var emailAfter = after != null && after.key() == Cursor.Key.EMAIL ? after : null;
+      records.addAll(
+          firstBy(
+              EMAIL_BYTES,
+              afterCursor(EMAIL_BYTES, emailAfter)
+                  .and(startsWithBytes(EMAIL_BYTES, prefix))
+                  .andNot(byUsername),
+              limit - count));
+    }
+    return count;
+  }
+
+  /** {@code (key, id)} が {@code after} より後 */
+  private static Condition afterCursor(Field<String> key, @Nullable Cursor after) {
+    return after != null ? row(key, USERS.ID).gt(after.value(), after.id()) : noCondition();
+  }
+
+  /** {@code condition} に一致するユーザーを {@code (key, id)} の順に最大 {@code limit} 件 */
+  private List<UsersRecord> firstBy(Field<String> key, Condition condition, int limit) {
+    return dsl.selectFrom(USERS).where(condition).orderBy(key, USERS.ID).limit(limit).fetch();
+  }
+
+  /** {@code userIds} のロールのidを {@code user_id = ANY(?)} の1回のクエリで読む。ロールのないユーザーはキーに含まれない */
+  private Map<UUID, List<UUID>> findRoleIdsByUserIds(Collection<UUID> userIds) {
+    if (userIds.isEmpty()) {
+      return Map.of();
+    }
+    return dsl.select(USER_ROLES.USER_ID, USER_ROLES.ROLE_ID)
+        .from(USER_ROLES)
+        .where(USER_ROLES.USER_ID.eq(any(userIds.toArray(UUID[]::new))))
+        .fetchGroups(USER_ROLES.USER_ID, USER_ROLES.ROLE_ID);
+  }
+
+  /**
+   * {@code field} が {@code prefix} で始まる。{@code COLLATE "C"} の式用で、その式のインデックスを使う。
+   *
+   * <p>{@code LIKE ? || '%'} だとパターンが実行時まで決まらず、汎用プランではインデックスを使えない。 代わりに {@code prefix}
+   * 以上、{@link #prefixEnd} 未満の範囲にする (バイト順の比較なので、UTF-8でもコードポイント順と一致する)。
+   */
+  private static Condition startsWithBytes(Field<String> field, String prefix) {
+    var end = prefixEnd(prefix);
+    var from = field.ge(prefix);
+    return end != null ? from.and(field.lt(end)) : from.and(field.startsWith(prefix));
+  }
+
+  /** {@code prefix} の最後の文字を1つ進めた文字列。{@code prefix} で始まる文字列はどれもこれより小さい。進められなければnull */
+  private static @Nullable String prefixEnd(String prefix) {
+    int last = prefix.codePointBefore(prefix.length());
+    int next = last + 1 == Character.MIN_SURROGATE ? Character.MAX_SURROGATE + 1 : last + 1;
+    if (next > Character.MAX_CODE_POINT) {
+      return null;
     }
+    return prefix.substring(0, prefix.length() - Character.charCount(last))
+        + Character.toString(next);
+  }
+
+  /** ユーザーとそのロールのidを1行で取るSELECT。列は {@link UserRecordMapper} で読む */
+  static SelectConditionStep<Record> selectUser(DSLContext dsl, Condition condition) {
+    return dsl.select(UserRecordMapper.FIELDS).from(USERS).where(condition);
   }
 
   // --------------------------------------------------------------------------------------------
@@ -65,32 +361,85 @@ public class UserRepository {
   public sealed interface InsertResult permits InsertResult.Success, InsertResult.AlreadyExists {
     public record Success() implements InsertResult {}
 
-    public record AlreadyExists() implements InsertResult {}
+    /** 一意制約に違反した。{@code conflict} はその項目 */
+    public record AlreadyExists(Conflict conflict) implements InsertResult {}
+
+    public enum Conflict {
+      USERNAME,
+      EMAIL
+    }
   }
 
   public InsertResult insert(User user) {
     try {
-      // Unique violationのときはここまでrollbackされる
-      dsl.transaction(
-          tx -> {
-            var userR = toRecord(user);
-            var userRolesR =
-                user.getRoles().stream()
-                    .map(role -> new UserRolesRecord(user.getId(), role.id(), role.createdAt()))
-                    .collect(Collectors.toSet());
-            tx.dsl().insertInto(USERS).set(userR).execute();
-            tx.dsl().batchInsert(userRolesR).execute();
-          });
+      return metrics.record(METRIC, "insert", () -> insertInternal(user));
+    } finally {
+      // 成功・失敗どちらでも、ネガティブキャッシュが残っている可能性がある
+      userCache.invalidate(user.getUsername());
+    }
+  }
+
+  /**
+   * ユーザーとロールの紐付けを1文で入れる。
+   *
+   * <pre>{@code
+   * WITH inserted AS (INSERT INTO users ... RETURNING id)
+   * INSERT INTO user_roles SELECT inserted.id, r.* FROM inserted CROSS JOIN (VALUES ...) r
+   * }</pre>
+   *
+   * <p>1文なのでトランザクションを張らなくても全て入るか何も入らないかのどちらかになる。
+   * 一意制約違反のときは、どの制約かをエラーから読むので事前のSELECTは要らない。
+   */
+  private InsertResult insertInternal(User user) {
+    var userR = toRecord(user);
+    try {
+      if (user.getRoles().isEmpty()) {
+        dsl.insertInto(USERS).set(userR).execute();
+      } else {
+        var inserted = name("inserted").as(insertInto(USERS).set(userR).returningResult(USERS.ID));
+        @SuppressWarnings("unchecked")
+        Row2<UUID, OffsetDateTime>[] roleRows =
+            user.getRoles().roles().stream()
+                .map(role -> row(role.id(), user.getCreatedAt()))
+                .toArray(Row2[]::new);
+        var roles =
+            values(roleRows).as("r", USER_ROLES.ROLE_ID.getName(), USER_ROLES.CREATED_AT.getName());
+        dsl.with(inserted)
+            .insertInto(USER_ROLES, USER_ROLES.USER_ID, USER_ROLES.ROLE_ID, USER_ROLES.CREATED_AT)
+            .select(
+                select(
+                        inserted.field(USERS.ID),
+                        roles.field(USER_ROLES.ROLE_ID),
+                        roles.field(USER_ROLES.CREATED_AT))
+                    .from(inserted)
+                    .crossJoin(roles))
+            .execute();
+      }
       return new InsertResult.Success();
     } catch (DataAccessException e) {
-      if (e.sqlState().equals("23505")) { // Unique violation
-        return new InsertResult.AlreadyExists();
-      } else {
+      var conflict = conflictOf(e);
+      if (conflict == null) {
         throw e;
       }
+      return new InsertResult.AlreadyExists(conflict);
     }
   }
 
+  /** 一意制約違反なら、制約名から項目を決める */
+  private static InsertResult.@Nullable Conflict conflictOf(DataAccessException e) {
+    if (!"23505".equals(e.sqlState())) { // Unique violation
+      return null;
+    }
+    var cause = e.getCause(PSQLException.class);
+    var error = cause != null ? cause.getServerErrorMessage() : null;
+    var constraint = error != null ? error.getConstraint() : null;
+    return switch (constraint) {
+      case "users_username_key" -> InsertResult.Conflict.USERNAME;
+      case "users_email_key" -> InsertResult.Conflict.EMAIL;
+      case null, default -> null;
+    };
+  }
+
   public sealed interface ChangePasswordResult
       permits ChangePasswordResult.Success, ChangePasswordResult.UserNotFound {
     public record Success() implements ChangePasswordResult {}
@@ -99,12 +448,36 @@ public class UserRepository {
   }
 
   public ChangePasswordResult changePassword(UUID id, User.PasswordHash passwordHash) {
+    return metrics.record(
+        METRIC, "changePassword", () -> updatePassword(passwordHash, USERS.ID.eq(id)));
+  }
+
+  /**
+   * 現在のハッシュが {@code expected} のままなら {@code passwordHash} に変更する。
+   *
+   * <p>再ハッシュ中にユーザーがパスワードを変更した場合に、古いパスワードで上書きしないため。
+   */
+  public ChangePasswordResult changePassword(
+      UUID id, User.PasswordHash expected, User.PasswordHash passwordHash) {
+    return metrics.record(
+        METRIC,
+        "changePasswordIfUnchanged",
+        () ->
+            updatePassword(
+                passwordHash, USERS.ID.eq(id).and(USERS.PASSWORD.eq(expected.asString()))));
+  }
+
+  private ChangePasswordResult updatePassword(User.PasswordHash passwordHash, Condition condition) {
     var query =
-        dsl.update(USERS).set(USERS.PASSWORD, passwordHash.asString()).where(USERS.ID.eq(id));
-    var res = query.execute();
-    if (res == 0) {
+        dsl.update(USERS)
+            .set(USERS.PASSWORD, passwordHash.asString())
+            .where(condition)
+            .returningResult(USERS.USERNAME);
+    var res = query.fetchOptional();
+    if (res.isEmpty()) {
       return new ChangePasswordResult.UserNotFound();
     } else {
+      userCache.invalidate(res.get().value1());
       return new ChangePasswordResult.Success();
     }
   }
@@ -112,7 +485,8 @@ public class UserRepository {
   // --------------------------------------------------------------------------------------------
   // Helper
 
-  private static User fromRecord(UsersRecord r, Set<RolesRecord> roles) {
+  // ベンチマーク (UserRepositoryBenchmark) から呼ぶのでパッケージプライベート
+  static User fromRecord(UsersRecord r, RoleSet roles) {
     return User.unsafeOf(
         r.getId(),
         r.getUsername(),
@@ -121,11 +495,7 @@ public class UserRepository {
         r.getEnabled(),
         r.getCreatedAt(),
         r.getUpdatedAt(),
-        roles.stream().map(UserRepository::fromRecord).collect(Collectors.toSet()));
-  }
-
-  private static Role fromRecord(RolesRecord r) {
-    return new Role(r.getId(), r.getName(), r.getCreatedAt());
+        roles);
   }
 
   private static UsersRecord toRecord(User user) {
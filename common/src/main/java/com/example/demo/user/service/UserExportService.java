@@ -0,0 +1,142 @@
+package com.example.demo.user.service;
+
+import com.example.demo.user.entity.Role;
+import com.example.demo.user.entity.User;
+import com.example.demo.user.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * ユーザーとロールをCSV/JSONLで書き出す。監査や、他システムのキャッシュを温めるため。パスワードのハッシュは出さない。
+ *
+ * <p>idの順に {@code page-size} 件ずつのページに分けて読む (キーセットページング)。1ページを読み終えてコネクションを返してから書くので、
+ * クライアントが遅くてもドメインのプールを握り続けない。メモリに載るのは1ページ分だけ。ページの間で他のトランザクションが入るので
+ * 全体としては1つのスナップショットではないが、途中で止まっても最後のidを {@code after} に渡せば続きから書ける。
+ */
+@Slf4j
+@Service
+public class UserExportService {
+  private static final String CSV_HEADER = "id,username,email,enabled,created_at,updated_at,roles";
+
+  private final UserRepository userRepository;
+  private final ObjectMapper objectMapper;
+  private final int pageSize;
+
+  public UserExportService(
+      UserRepository userRepository,
+      ObjectMapper objectMapper,
+      @Value("${user.export.page-size:1000}") int pageSize) {
+    this.userRepository = userRepository;
+    this.objectMapper = objectMapper;
+    this.pageSize = pageSize;
+  }
+
+  /** 書き出す1件。JSONLではこの形のオブジェクトになる */
+  public record ExportedUser(
+      UUID id,
+      String username,
+      String email,
+      boolean enabled,
+      OffsetDateTime createdAt,
+      OffsetDateTime updatedAt,
+      List<String> roles) {
+
+    static ExportedUser of(User user) {
+      return new ExportedUser(
+          user.getId(),
+          user.getUsername(),
+          user.getEmail(),
+          user.isEnabled(),
+          user.getCreatedAt(),
+          user.getUpdatedAt(),
+          user.getRoles().roles().stream().map(Role::name).sorted().toList());
+    }
+  }
+
+  /**
+   * エクスポートの結果。
+   *
+   * @param lastId 最後に書いたユーザーのid。続きは {@code after} にこれを渡す。1件も書いていなければnull
+   */
+  public record ExportResult(long exported, @Nullable UUID lastId) {}
+
+  /**
+   * {@code out} にユーザーを書き出す。{@code out} は閉じない。
+   *
+   * @param after このidより後から書く。nullなら先頭から
+   * @param limit 書く最大件数。0以下なら全件
+   */
+  public ExportResult export(Writer out, UserFileFormat format, @Nullable UUID after, long limit) {
+    try {
+      if (format == UserFileFormat.CSV) {
+        out.write(CSV_HEADER);
+        out.write('\n');
+      }
+      long exported = 0;
+      @Nullable UUID lastId = null;
+      while (limit <= 0 || exported < limit) {
+        int size = limit <= 0 ? pageSize : (int) Math.min(pageSize, limit - exported);
+        var page = userRepository.findAfter(lastId != null ? lastId : after, size);
+        for (var user : page) {
+          write(out, format, ExportedUser.of(user));
+        }
+        exported += page.size();
+        if (!page.isEmpty()) {
+          lastId = page.getLast().getId();
+        }
+        // HTTPのレスポンスならページごとにクライアントへ送る
+        out.flush();
+        if (page.size() < size) {
+          break;
+        }
+      }
+      log.info("Exported {} user(s) after {}", exported, after);
+      return new ExportResult(exported, lastId);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private void write(Writer out, UserFileFormat format, ExportedUser user) {
+    try {
+      switch (format) {
+        case JSONL -> out.write(objectMapper.writeValueAsString(user));
+        case CSV ->
+            out.write(
+                String.join(
+                    ",",
+                    user.id().toString(),
+                    csv(user.username()),
+                    csv(user.email()),
+                    Boolean.toString(user.enabled()),
+                    user.createdAt().toString(),
+                    user.updatedAt().toString(),
+                    csv(user.roles().stream().collect(Collectors.joining(";")))));
+      }
+      out.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** {@code ,} か {@code "} を含むときだけ {@code "} で囲む */
+  private static String csv(String value) {
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.user.service;
+
+import java.util.Locale;
+
+/** ユーザーの一括インポート・エクスポートのファイル形式 */
+public enum UserFileFormat {
+  CSV("text/csv"),
+  JSONL("application/x-ndjson");
+
+  private final String contentType;
+
+  UserFileFormat(String contentType) {
+    this.contentType = contentType;
+  }
+
+  public String contentType() {
+    return contentType;
+  }
+
+  public static UserFileFormat of(String value) {
+    return switch (value.toLowerCase(Locale.ROOT)) {
+      case "csv" -> CSV;
+      case "jsonl", "ndjson" -> JSONL;
+      default -> throw new IllegalArgumentException("Unknown format: " + value);
+    };
+  }
+}
@@ -0,0 +1,225 @@
+package com.example.demo.user.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 一括インポートの入力を1行ずつ読む。ファイル全体はメモリに載せない。
+ *
+ * <ul>
+ *   <li>CSV: 1行目はヘッダー ({@code username,password,email[,role]}、順不同)。値は {@code "} で囲める。1つの値の中で改行はできない
+ *   <li>JSONL: 1行に1つ {@code {"username": ..., "password": ..., "email": ..., "role": ...}}。空行は飛ばす
+ * </ul>
+ *
+ * <p>行番号は入力の物理的な行で数える (CSVのヘッダーは1行目)。チェックポイントとエラーレポートはこの番号を使う。
+ *
+ * <p>先頭のBOM (Excelが付ける) は読み飛ばす。ヘッダーが正しくないなど、入力全体を受け付けられないときは {@link
+ * InvalidInputException}。
+ */
+public final class UserImportReader implements Closeable {
+  private static final List<String> COLUMNS = List.of("username", "password", "email", "role");
+  private static final char BOM = '\uFEFF';
+
+  public sealed interface Entry permits Row, Invalid {
+    long line();
+  }
+
+  /** {@code role} は省略されていればnull */
+  public record Row(
+      long line, String username, String password, String email, @Nullable String role)
+      implements Entry {}
+
+  /** 形式が正しくない行 */
+  public record Invalid(long line, String reason) implements Entry {}
+
+  /** 入力全体を受け付けられない。1行も取り込まない */
+  public static class InvalidInputException extends RuntimeException {
+    public InvalidInputException(String message) {
+      super(message);
+    }
+  }
+
+  private final BufferedReader reader;
+  private final UserFileFormat format;
+  private final ObjectMapper objectMapper;
+  private long line = 0;
+  private @Nullable Map<String, Integer> header;
+
+  public UserImportReader(Reader reader, UserFileFormat format, ObjectMapper objectMapper) {
+    this.reader = reader instanceof BufferedReader b ? b : new BufferedReader(reader);
+    this.format = format;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * 次の行。入力の終わりならnull
+   *
+   * @throws InvalidInputException CSVのヘッダーが正しくない
+   */
+  public @Nullable Entry next() throws IOException {
+    while (true) {
+      var text = reader.readLine();
+      if (text == null) {
+        return null;
+      }
+      line++;
+      if (line == 1 && !text.isEmpty() && text.charAt(0) == BOM) {
+        text = text.substring(1);
+      }
+      if (text.isBlank()) {
+        continue;
+      }
+      switch (format) {
+        case CSV -> {
+          if (header == null) {
+            header = parseHeader(text);
+            continue;
+          }
+          return parseCsv(header, text);
+        }
+        case JSONL -> {
+          return parseJson(text);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // CSV
+
+  private Map<String, Integer> parseHeader(String text) {
+    var columns = new HashMap<String, Integer>();
+    var names = splitCsv(text);
+    if (names == null) {
+      throw new InvalidInputException("Malformed CSV header at line " + line);
+    }
+    for (int i = 0; i < names.size(); i++) {
+      var name = names.get(i).trim().toLowerCase(Locale.ROOT);
+      if (!COLUMNS.contains(name)) {
+        throw new InvalidInputException("Unknown CSV column: " + name);
+      }
+      if (columns.put(name, i) != null) {
+        throw new InvalidInputException("Duplicate CSV column: " + name);
+      }
+    }
+    if (!columns.keySet().containsAll(COLUMNS.subList(0, 3))) {
+      throw new InvalidInputException("CSV header must contain username, password and email");
+    }
+    return columns;
+  }
+
+  private Entry parseCsv(Map<String, Integer> columns, String text) {
+    var values = splitCsv(text);
+    if (values == null) {
+      return new Invalid(line, "Malformed CSV");
+    }
+    if (values.size() != columns.size()) {
+      return new Invalid(line, "Expected " + columns.size() + " columns but got " + values.size());
+    }
+    return row(
+        column(values, columns, "username"),
+        column(values, columns, "password"),
+        column(values, columns, "email"),
+        column(values, columns, "role"));
+  }
+
+  private static @Nullable String column(
+      List<String> values, Map<String, Integer> columns, String name) {
+    var index = columns.get(name);
+    return index == null ? null : values.get(index);
+  }
+
+  /** RFC 4180の1行分。引用符が閉じていなければnull */
+  static @Nullable List<String> splitCsv(String text) {
+    var values = new ArrayList<String>();
+    var current = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (quoted) {
+        if (c != '"') {
+          current.append(c);
+        } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+          current.append('"');
+          i++;
+        } else {
+          quoted = false;
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        values.add(current.toString());
+        current.setLength(0);
+      } else {
+        current.append(c);
+      }
+    }
+    if (quoted) {
+      return null;
+    }
+    values.add(current.toString());
+    return values;
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // JSONL
+
+  private Entry parseJson(String text) {
+    JsonNode node;
+    try {
+      node = objectMapper.readTree(text);
+    } catch (JsonProcessingException e) {
+      return new Invalid(line, "Malformed JSON");
+    }
+    if (!node.isObject()) {
+      return new Invalid(line, "Expected a JSON object");
+    }
+    return row(
+        text(node, "username"), text(node, "password"), text(node, "email"), text(node, "role"));
+  }
+
+  private static @Nullable String text(JsonNode node, String name) {
+    var value = node.get(name);
+    return value == null || value.isNull() ? null : value.asText();
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  private Entry row(
+      @Nullable String username,
+      @Nullable String password,
+      @Nullable String email,
+      @Nullable String role) {
+    if (username == null || username.isEmpty()) {
+      return new Invalid(line, "Username is required");
+    }
+    if (password == null || password.isEmpty()) {
+      return new Invalid(line, "Password is required");
+    }
+    // 一意なので、サインアップと違って仮のアドレスにはできない
+    if (email == null || email.isBlank()) {
+      return new Invalid(line, "Email is required");
+    }
+    return new Row(line, username, password, email, blankToNull(role));
+  }
+
+  private static @Nullable String blankToNull(@Nullable String value) {
+    return value == null || value.isBlank() ? null : value;
+  }
+}
@@ -0,0 +1,249 @@
+package com.example.demo.user.service;
+
+import com.example.demo.user.entity.User;
+import com.example.demo.user.repository.RoleCatalog;
+import com.example.demo.user.repository.UserCache;
+import com.example.demo.user.repository.UserImportRepository;
+import com.example.demo.user.repository.UserImportRepository.StagedUser;
+import com.example.demo.user.service.UserImportReader.Invalid;
+import com.example.demo.user.service.UserImportReader.Row;
+import com.example.demo.utils.Either;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * CSV/JSONLからユーザーを一括で作る。
+ *
+ * <p>{@code batch-size} 行ずつ、パスワードのハッシュを並列に計算してから {@link UserImportRepository} で入れる。
+ * ハッシュには {@link com.example.demo.crosscutting.HashingExecutor} を使わない。あちらはログイン用にキューが小さく、溢れたら諦めるため。
+ * 代わりにインポート専用の小さなプール ({@code user.import.threads}) を全てのインポートで共有し、同時に実行できるインポートの数
+ * ({@code user.import.max-concurrent}) も制限する。インポートがCPUを使い切って、ログインのハッシュが待たされないようにするため。
+ *
+ * <p>{@code job} を指定すると、バッチごとに入力の行番号をチェックポイントとして残す。同じ {@code job} で再実行すると続きから読む。
+ * エラーはバッチがコミットされてから行番号順に {@code errors} へ渡すので、再開しても同じ行を二重に報告しない。
+ */
+@Slf4j
+@Service
+public class UserImportService {
+  private final UserImportRepository userImportRepository;
+  private final UserCache userCache;
+  private final RoleCatalog roleCatalog;
+  private final PasswordEncoder passwordEncoder;
+  private final ObjectMapper objectMapper;
+  private final int batchSize;
+  private final ThreadPoolExecutor executor;
+  private final Semaphore running;
+
+  public UserImportService(
+      UserImportRepository userImportRepository,
+      UserCache userCache,
+      RoleCatalog roleCatalog,
+      PasswordEncoder passwordEncoder,
+      ObjectMapper objectMapper,
+      @Value("${user.import.batch-size:1000}") int batchSize,
+      @Value("${user.import.threads:2}") int threads,
+      @Value("${user.import.max-concurrent:1}") int maxConcurrent) {
+    if (threads <= 0 || maxConcurrent <= 0) {
+      throw new IllegalStateException(
+          "user.import.threads and user.import.max-concurrent must be positive");
+    }
+    this.userImportRepository = userImportRepository;
+    this.userCache = userCache;
+    this.roleCatalog = roleCatalog;
+    this.passwordEncoder = passwordEncoder;
+    this.objectMapper = objectMapper;
+    this.batchSize = batchSize;
+    var counter = new AtomicInteger();
+    // キューに入るのは実行中のインポートのバッチの分だけ (max-concurrent * batch-size)
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              var t = new Thread(r, "user-import-" + counter.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    this.running = new Semaphore(maxConcurrent);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /** {@code user.import.max-concurrent} 件のインポートが実行中で、受け付けられなかった */
+  public static class BusyException extends RuntimeException {
+    public BusyException() {
+      super("Too many imports are running");
+    }
+  }
+
+  /** 取り込めなかった行 */
+  public record RowError(long line, @Nullable String username, String reason) {}
+
+  /**
+   * インポートの結果。
+   *
+   * @param resumedFrom チェックポイントから再開した場合、その行番号。それ以前の行は読み飛ばした
+   * @param lastLine 最後にコミットした行番号。次に同じ {@code job} で実行するとこの次から読む
+   */
+  public record ImportResult(long resumedFrom, long imported, long failed, long lastLine) {}
+
+  /**
+   * {@code input} を読み終わるまでインポートする。
+   *
+   * @throws BusyException 他のインポートが実行中で、同時に実行できる数を超える
+   */
+  public ImportResult importUsers(
+      Reader input, UserFileFormat format, @Nullable String job, Consumer<RowError> errors) {
+    if (!running.tryAcquire()) {
+      throw new BusyException();
+    }
+    try {
+      return importUsersInternal(input, format, job, errors);
+    } finally {
+      running.release();
+    }
+  }
+
+  private ImportResult importUsersInternal(
+      Reader input, UserFileFormat format, @Nullable String job, Consumer<RowError> errors) {
+    var roles = roleCatalog.snapshot();
+    long checkpoint = job != null ? userImportRepository.findCheckpoint(job) : 0;
+    if (checkpoint > 0) {
+      log.info("Resuming user import {} after line {}", job, checkpoint);
+    }
+
+    try (var reader = new UserImportReader(input, format, objectMapper)) {
+      long imported = 0;
+      long failed = 0;
+      long lastLine = checkpoint;
+      var batch = new ArrayList<UserImportReader.Entry>(batchSize);
+      UserImportReader.Entry entry;
+      while ((entry = reader.next()) != null) {
+        if (entry.line() <= checkpoint) {
+          continue;
+        }
+        batch.add(entry);
+        if (batch.size() >= batchSize) {
+          var result = processBatch(batch, roles, job, errors);
+          imported += result.imported();
+          failed += result.failed();
+          lastLine = result.lastLine();
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty()) {
+        var result = processBatch(batch, roles, job, errors);
+        imported += result.imported();
+        failed += result.failed();
+        lastLine = result.lastLine();
+      }
+      log.info("User import {} finished: imported={}, failed={}", job, imported, failed);
+      return new ImportResult(checkpoint, imported, failed, lastLine);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private ImportResult processBatch(
+      List<UserImportReader.Entry> batch,
+      RoleCatalog.Snapshot roles,
+      @Nullable String job,
+      Consumer<RowError> errors) {
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    var rowErrors = new ArrayList<RowError>();
+    var pending = new ArrayList<Pending>(batch.size());
+    for (var entry : batch) {
+      switch (entry) {
+        case Invalid(var line, var reason) -> rowErrors.add(new RowError(line, null, reason));
+        case Row row -> {
+          var role = roles.byName(row.role() != null ? row.role() : RoleCatalog.DEFAULT_ROLE);
+          if (role == null) {
+            rowErrors.add(new RowError(row.line(), row.username(), "Unknown role: " + row.role()));
+          } else {
+            pending.add(
+                new Pending(
+                    row,
+                    executor.submit(
+                        () ->
+                            User.of(
+                                row.username(),
+                                row.password(),
+                                row.email(),
+                                now,
+                                roles.roleSet(role),
+                                passwordEncoder))));
+          }
+        }
+      }
+    }
+
+    var staged = new ArrayList<StagedUser>(pending.size());
+    for (var p : pending) {
+      switch (await(p.user())) {
+        case Either.Right(User user) -> staged.add(new StagedUser(p.row().line(), user));
+        case Either.Left(var msg) ->
+            rowErrors.add(new RowError(p.row().line(), p.row().username(), msg));
+      }
+    }
+
+    long lastLine = batch.getLast().line();
+    var rejected = userImportRepository.load(staged, job, lastLine, rowErrors.size());
+    for (var r : rejected) {
+      var reason =
+          switch (r.conflict()) {
+            case USERNAME -> "Username already exists";
+            case EMAIL -> "Email already exists";
+          };
+      rowErrors.add(new RowError(r.line(), r.username(), reason));
+    }
+    // ネガティブキャッシュに残っていると、取り込んだ直後にログインできない
+    staged.forEach(s -> userCache.invalidate(s.user().getUsername()));
+
+    rowErrors.sort(Comparator.comparingLong(RowError::line));
+    rowErrors.forEach(errors);
+    return new ImportResult(0, (long) staged.size() - rejected.size(), rowErrors.size(), lastLine);
+  }
+
+  private record Pending(Row row, Future<Either<String, User>> user) {}
+
+  private static Either<String, User> await(Future<Either<String, User>> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while hashing passwords", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to hash a password", e.getCause());
+    }
+  }
+}
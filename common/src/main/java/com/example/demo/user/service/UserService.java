@@ -1,28 +1,41 @@
 package com.example.demo.user.service;
 
-import com.example.demo.user.entity.Role;
+import com.example.demo.crosscutting.HashingExecutor;
+import com.example.demo.crosscutting.OperationMetrics;
 import com.example.demo.user.entity.User;
+import com.example.demo.user.repository.RoleCatalog;
 import com.example.demo.user.repository.UserRepository;
 import com.example.demo.user.repository.UserRepository.InsertResult;
 import com.example.demo.utils.Either;
-import com.fasterxml.uuid.Generators;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.Optional;
-import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.Nullable;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * ユーザーの作成・認証・パスワード変更。
+ *
+ * <p>クラス全体にはトランザクションを掛けない。掛けるとパスワードのハッシュ計算 (ハッシュ用スレッドの待ち時間を含む) の間もコネクションを持ち続け、
+ * ログインが集中したときにプールが空になる。ここでの書き込みはどれも1文なので、ハッシュを計算してから自動コミットで書く。
+ * 複数のクエリを一貫して読みたいメソッドだけ個別に {@link Transactional} を付ける。
+ */
 @Slf4j
 @Service
-@Transactional
 @AllArgsConstructor
 public class UserService {
+  private static final String METRIC = "user.service";
 
   private final UserRepository userRepository;
+  private final RoleCatalog roleCatalog;
+  private final HashingExecutor hashingExecutor;
+  private final PasswordEncoder passwordEncoder;
+  private final VerifiedCredentialCache credentialCache;
+  private final OperationMetrics metrics;
 
   // ----------------------------------------------------------------------------------------------
   // Create User
@@ -33,34 +46,61 @@ public class UserService {
           CreateUserResult.InvalidInput {
     record Success(User user) implements CreateUserResult {}
 
-    record AlreadyExists() implements CreateUserResult {}
+    /** {@code conflict} はユーザー名とメールアドレスのどちらが使われていたか */
+    record AlreadyExists(InsertResult.Conflict conflict) implements CreateUserResult {}
 
     record InvalidInput(String msg) implements CreateUserResult {}
   }
 
-  public CreateUserResult createUser(String username, String password, @Nullable String role) {
+  /**
+   * {@code email} を省略すると仮のアドレスになる。メールアドレスは一意なので、省略できるのは1人だけ。
+   *
+   * <p>ロールは常に {@link RoleCatalog#DEFAULT_ROLE}。
+   */
+  public CreateUserResult createUser(String username, String password, @Nullable String email) {
+    return metrics.record(
+        METRIC, "createUser", () -> createUserInternal(username, password, email));
+  }
+
+  private CreateUserResult createUserInternal(
+      String username, String password, @Nullable String email) {
     var now = OffsetDateTime.now(ZoneId.of("Asia/Tokyo"));
-    var roles = new Role(generateUUID(), "READ", now);
-    var mUser = User.of(username, password, "tekito@example.com", now, roles);
+    var catalog = roleCatalog.snapshot();
+    var roles = catalog.roleSet(catalog.require(RoleCatalog.DEFAULT_ROLE));
+    var mUser =
+        hashingExecutor.call(
+            "hash",
+            () ->
+                User.of(
+                    username,
+                    password,
+                    email != null ? email : "tekito@example.com",
+                    now,
+                    roles,
+                    passwordEncoder));
 
     switch (mUser) {
       case Either.Right(User user):
-        // FIXME ユーザー名がコンフリクトしたのか、メルアドがコンフリクトしたのかを区別する必要がある
-        // 事前のSELECTが必要
         var result = userRepository.insert(user);
         switch (result) {
           case InsertResult.Success():
             return new CreateUserResult.Success(user);
-          case UserRepository.InsertResult.AlreadyExists():
-            return new CreateUserResult.AlreadyExists();
+          case UserRepository.InsertResult.AlreadyExists(var conflict):
+            return new CreateUserResult.AlreadyExists(conflict);
         }
       case Either.Left(var msg):
         return new CreateUserResult.InvalidInput(msg);
     }
   }
 
-  private UUID generateUUID() {
-    return Generators.timeBasedEpochRandomGenerator().generate();
+  // ----------------------------------------------------------------------------------------------
+  // Search Users
+
+  /** 管理画面の一覧・検索。詳しくは {@link UserRepository#search} */
+  @Transactional(readOnly = true)
+  public UserRepository.Page searchUsers(
+      @Nullable String prefix, UserRepository.@Nullable Cursor after, int limit) {
+    return metrics.record(METRIC, "searchUsers", () -> userRepository.search(prefix, after, limit));
   }
 
   // ----------------------------------------------------------------------------------------------
@@ -79,33 +119,91 @@ public class UserService {
   }
 
   public AuthResult authenticate(AuthChallange request) {
+    return metrics.record(METRIC, "authenticate", () -> authenticateInternal(request));
+  }
+
+  /**
+   * ログインが遅いときにDBとハッシュのどちらが原因か分かるよう、それぞれを別のTimerにも記録する。
+   *
+   * <p>{@code user.authenticate.db} はUserCacheのヒットも含む。{@code user.authenticate.hash} はハッシュ用スレッドの待ち時間も含む。
+   */
+  private AuthResult authenticateInternal(AuthChallange request) {
     log.info("Authenticate request: {}", request);
 
-    Optional<User> userOpt = userRepository.findByUsername(request.username());
+    Optional<User> userOpt =
+        metrics.record(
+            "user.authenticate.db",
+            "findByUsername",
+            () -> userRepository.findByUsername(request.username()));
     if (userOpt.isEmpty()) {
       log.info("User not found: {}", request.username());
       return new AuthResult.UserNotFound();
     }
 
     User user = userOpt.get();
-    if (!user.getPasswordHash().matches(request.password())) {
+    if (credentialCache.isVerified(
+        user.getUsername(), request.password(), user.getPasswordHash())) {
+      log.info("User authenticated (cached): {}", request.username());
+      return new AuthResult.Success(user);
+    }
+
+    boolean matches =
+        metrics.record(
+            "user.authenticate.hash",
+            "matches",
+            () ->
+                hashingExecutor.call(
+                    "verify",
+                    () -> user.getPasswordHash().matches(request.password(), passwordEncoder)));
+    if (!matches) {
       log.info("Wrong password for user: {}", request.username());
       return new AuthResult.WrongPassword();
     }
 
     log.info("User authenticated: {}", request.username());
+    if (user.getPasswordHash().needsRehash(passwordEncoder)) {
+      rehashInBackground(user, request.password());
+    } else {
+      credentialCache.put(user.getUsername(), request.password(), user.getPasswordHash());
+    }
     return new AuthResult.Success(user);
   }
 
+  /** 古いアルゴリズム・コストのハッシュを裏で更新する。混んでいたら次回のログインに回す */
+  private void rehashInBackground(User user, String rawPassword) {
+    var accepted =
+        hashingExecutor.tryExecute(
+            "rehash",
+            () -> {
+              var rehashed = user.rehashPassword(rawPassword, passwordEncoder);
+              // 途中でパスワードが変更されていたら何もしない
+              var result =
+                  userRepository.changePassword(
+                      user.getId(), user.getPasswordHash(), rehashed.getPasswordHash());
+              if (result instanceof UserRepository.ChangePasswordResult.Success) {
+                log.info("Password rehashed: {}", user.getUsername());
+              }
+            });
+    if (!accepted) {
+      log.info("Rehash skipped (hashing executor is busy): {}", user.getUsername());
+    }
+  }
+
   // ----------------------------------------------------------------------------------------------
   // Change Password
 
   public Optional<User> changePassword(User user, String newPassword) {
-    switch (user.changePassword(newPassword)) {
+    return metrics.record(
+        METRIC, "changePassword", () -> changePasswordInternal(user, newPassword));
+  }
+
+  private Optional<User> changePasswordInternal(User user, String newPassword) {
+    switch (hashingExecutor.call("hash", () -> user.changePassword(newPassword, passwordEncoder))) {
       case Either.Left(var msg):
         return Optional.empty();
       case Either.Right(User newUser):
         userRepository.changePassword(newUser.getId(), newUser.getPasswordHash());
+        credentialCache.invalidate(newUser.getUsername());
         return Optional.of(newUser);
     }
   }
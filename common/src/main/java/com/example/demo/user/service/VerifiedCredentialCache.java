@@ -0,0 +1,129 @@
+package com.example.demo.user.service;
+
+import com.example.demo.crosscutting.InvalidationBus;
+import com.example.demo.user.entity.User;
+import com.example.demo.user.repository.UserCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Set;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 直近に検証に成功した (ユーザー名, パスワード) の組を短時間覚えておき、同じ組での再ログインでBCryptを省略する。
+ *
+ * <p>平文は保持せず、プロセスごとにランダムな鍵でのHMACを覚える。 検証したときのハッシュも一緒に覚えておき、
+ * DBのハッシュが変わっていれば（他ノードでのパスワード変更など）ヒットしない。
+ *
+ * <p>正しいパスワードはユーザーごとに1つなので、ユーザー名をキーにして1件だけ持つ。無効化はそのキーを消すだけ。
+ * HMACとハッシュは {@link MessageDigest#isEqual} で比べ、一致した長さで応答時間が変わらないようにする。
+ */
+@Slf4j
+@Component
+public class VerifiedCredentialCache {
+  public static final String CACHE_NAME = "auth.credentials";
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+  /** 検証に成功したパスワードのHMACと、そのときのハッシュ */
+  @RequiredArgsConstructor
+  private static final class Entry {
+    private final byte[] passwordDigest;
+    private final byte[] passwordHash;
+  }
+
+  private final boolean enabled;
+  private final Cache<String, Entry> cache;
+  private final SecretKeySpec secret;
+
+  public VerifiedCredentialCache(
+      MeterRegistry meterRegistry,
+      InvalidationBus invalidationBus,
+      @Value("${auth.credential-cache.enabled:false}") boolean enabled,
+      @Value("${auth.credential-cache.ttl:30s}") Duration ttl,
+      @Value("${auth.credential-cache.maximum-size:10000}") long maximumSize) {
+    this.enabled = enabled;
+    this.cache =
+        Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maximumSize).recordStats().build();
+    var key = new byte[32];
+    new SecureRandom().nextBytes(key);
+    this.secret = new SecretKeySpec(key, HMAC_ALGORITHM);
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    // 他ノードでのパスワード変更はUserCacheと同じトピックで届く
+    invalidationBus.subscribe(
+        UserCache.TOPIC,
+        new InvalidationBus.Listener() {
+          @Override
+          public void invalidate(Set<String> usernames) {
+            cache.invalidateAll(usernames);
+          }
+
+          @Override
+          public void invalidateAll() {
+            cache.invalidateAll();
+          }
+        });
+    log.info(
+        "Verified credential cache: enabled={}, ttl={}, maximumSize={}", enabled, ttl, maximumSize);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  /** {@code rawPassword} が {@code passwordHash} に対して検証済みならtrue */
+  public boolean isVerified(String username, String rawPassword, User.PasswordHash passwordHash) {
+    if (!enabled) {
+      return false;
+    }
+    var entry = cache.getIfPresent(username);
+    if (entry == null) {
+      return false;
+    }
+    // 片方が違っても両方比べる
+    boolean samePassword = MessageDigest.isEqual(entry.passwordDigest, digest(rawPassword));
+    boolean sameHash = MessageDigest.isEqual(entry.passwordHash, bytes(passwordHash));
+    return samePassword && sameHash;
+  }
+
+  public void put(String username, String rawPassword, User.PasswordHash passwordHash) {
+    if (!enabled) {
+      return;
+    }
+    cache.put(username, new Entry(digest(rawPassword), bytes(passwordHash)));
+  }
+
+  public void invalidate(String username) {
+    if (!enabled) {
+      return;
+    }
+    cache.invalidate(username);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private static byte[] bytes(User.PasswordHash passwordHash) {
+    return passwordHash.asString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private byte[] digest(String rawPassword) {
+    try {
+      // Macはスレッドセーフではないので毎回作る
+      var mac = Mac.getInstance(HMAC_ALGORITHM);
+      mac.init(secret);
+      return mac.doFinal(rawPassword.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
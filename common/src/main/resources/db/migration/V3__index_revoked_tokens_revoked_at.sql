@@ -0,0 +1,2 @@
+-- 失効トークンの差分ポーリング (revoked_at >= ?) 用
+CREATE INDEX revoked_tokens_revoked_at_idx ON revoked_tokens (revoked_at);
@@ -0,0 +1,9 @@
+-- ユーザーの一括インポートの再開位置。
+-- バッチと同じトランザクションで更新するので、ここまでの行は取り込み済み (またはエラーとして報告済み)
+CREATE TABLE user_import_checkpoints (
+    job VARCHAR(255) PRIMARY KEY,
+    line BIGINT NOT NULL,
+    imported BIGINT NOT NULL DEFAULT 0,
+    failed BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,4 @@
+-- 管理画面の一覧・検索 (UserRepository.search) 用。ユーザー名とメールアドレスのそれぞれで (列, id) の順にキーセットでページングする。
+-- COLLATE "C" はバイト順なので、前方一致 (>= と <) と並び順の両方を同じインデックスで読める
+CREATE INDEX users_username_c_id_idx ON users (username COLLATE "C", id);
+CREATE INDEX users_email_c_id_idx ON users (email COLLATE "C", id);
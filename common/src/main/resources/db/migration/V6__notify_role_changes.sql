@@ -0,0 +1,14 @@
+-- rolesが変わったら、全ノードのRoleCatalogに読み直させる (InvalidationBusのトピック "role" に全件無効化を送る)。
+-- マイグレーションや手でのSQLでの変更も拾えるようにトリガーにしている
+CREATE FUNCTION notify_role_changes() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify(
+        'cache_invalidation',
+        json_build_object('node', 'database', 'topic', 'role', 'all', true, 'keys', '[]'::json)::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER roles_notify_changes
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON roles
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_role_changes();
@@ -0,0 +1,10 @@
+-- ユーザーごとのアクセストークンの発行時刻の下限。これより前に発行したトークンは失効扱い (パスワード変更など)。
+-- アクセストークンはユーザー名 (sub) しか持たないので、ユーザー名で引く
+CREATE TABLE user_token_cutoffs (
+    username VARCHAR(255) PRIMARY KEY,
+    not_before TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 差分ポーリング (updated_at >= ?) 用
+CREATE INDEX user_token_cutoffs_updated_at_idx ON user_token_cutoffs (updated_at);
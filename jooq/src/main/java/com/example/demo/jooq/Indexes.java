@@ -0,0 +1,31 @@
+/*
+ * This file is generated by jOOQ.
+ */
+package com.example.demo.jooq;
+
+
+import com.example.demo.jooq.tables.RevokedTokens;
+import com.example.demo.jooq.tables.UserTokenCutoffs;
+import com.example.demo.jooq.tables.Users;
+
+import org.jooq.Index;
+import org.jooq.OrderField;
+import org.jooq.impl.DSL;
+import org.jooq.impl.Internal;
+
+
+/**
+ * A class modelling indexes of tables in public.
+ */
+@SuppressWarnings({ "all", "unchecked", "rawtypes", "this-escape" })
+public class Indexes {
+
+    // -------------------------------------------------------------------------
+    // INDEX definitions
+    // -------------------------------------------------------------------------
+
+    public static final Index REVOKED_TOKENS_REVOKED_AT_IDX = Internal.createIndex(DSL.name("revoked_tokens_revoked_at_idx"), RevokedTokens.REVOKED_TOKENS, new OrderField[] { RevokedTokens.REVOKED_TOKENS.REVOKED_AT }, false);
+    public static final Index USER_TOKEN_CUTOFFS_UPDATED_AT_IDX = Internal.createIndex(DSL.name("user_token_cutoffs_updated_at_idx"), UserTokenCutoffs.USER_TOKEN_CUTOFFS, new OrderField[] { UserTokenCutoffs.USER_TOKEN_CUTOFFS.UPDATED_AT }, false);
+    public static final Index USERS_EMAIL_C_ID_IDX = Internal.createIndex(DSL.name("users_email_c_id_idx"), Users.USERS, new OrderField[] { Users.USERS.EMAIL, Users.USERS.ID }, false);
+    public static final Index USERS_USERNAME_C_ID_IDX = Internal.createIndex(DSL.name("users_username_c_id_idx"), Users.USERS, new OrderField[] { Users.USERS.USERNAME, Users.USERS.ID }, false);
+}
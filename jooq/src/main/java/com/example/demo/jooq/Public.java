@@ -6,7 +6,9 @@ package com.example.demo.jooq;
 
 import com.example.demo.jooq.tables.RevokedTokens;
 import com.example.demo.jooq.tables.Roles;
+import com.example.demo.jooq.tables.UserImportCheckpoints;
 import com.example.demo.jooq.tables.UserRoles;
+import com.example.demo.jooq.tables.UserTokenCutoffs;
 import com.example.demo.jooq.tables.Users;
 
 import java.util.Arrays;
@@ -40,11 +42,21 @@ public class Public extends SchemaImpl {
      */
     public final Roles ROLES = Roles.ROLES;
 
+    /**
+     * The table <code>public.user_import_checkpoints</code>.
+     */
+    public final UserImportCheckpoints USER_IMPORT_CHECKPOINTS = UserImportCheckpoints.USER_IMPORT_CHECKPOINTS;
+
     /**
      * The table <code>public.user_roles</code>.
      */
     public final UserRoles USER_ROLES = UserRoles.USER_ROLES;
 
+    /**
+     * The table <code>public.user_token_cutoffs</code>.
+     */
+    public final UserTokenCutoffs USER_TOKEN_CUTOFFS = UserTokenCutoffs.USER_TOKEN_CUTOFFS;
+
     /**
      * The table <code>public.users</code>.
      */
@@ -68,7 +80,9 @@ public class Public extends SchemaImpl {
         return Arrays.asList(
             RevokedTokens.REVOKED_TOKENS,
             Roles.ROLES,
+            UserImportCheckpoints.USER_IMPORT_CHECKPOINTS,
             UserRoles.USER_ROLES,
+            UserTokenCutoffs.USER_TOKEN_CUTOFFS,
             Users.USERS
         );
     }
@@ -6,7 +6,9 @@ package com.example.demo.jooq;
 
 import com.example.demo.jooq.tables.RevokedTokens;
 import com.example.demo.jooq.tables.Roles;
+import com.example.demo.jooq.tables.UserImportCheckpoints;
 import com.example.demo.jooq.tables.UserRoles;
+import com.example.demo.jooq.tables.UserTokenCutoffs;
 import com.example.demo.jooq.tables.Users;
 
 
@@ -26,11 +28,21 @@ public class Tables {
      */
     public static final Roles ROLES = Roles.ROLES;
 
+    /**
+     * The table <code>public.user_import_checkpoints</code>.
+     */
+    public static final UserImportCheckpoints USER_IMPORT_CHECKPOINTS = UserImportCheckpoints.USER_IMPORT_CHECKPOINTS;
+
     /**
      * The table <code>public.user_roles</code>.
      */
     public static final UserRoles USER_ROLES = UserRoles.USER_ROLES;
 
+    /**
+     * The table <code>public.user_token_cutoffs</code>.
+     */
+    public static final UserTokenCutoffs USER_TOKEN_CUTOFFS = UserTokenCutoffs.USER_TOKEN_CUTOFFS;
+
     /**
      * The table <code>public.users</code>.
      */
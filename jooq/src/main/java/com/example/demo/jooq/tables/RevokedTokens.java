@@ -4,6 +4,7 @@
 package com.example.demo.jooq.tables;
 
 
+import com.example.demo.jooq.Indexes;
 import com.example.demo.jooq.Keys;
 import com.example.demo.jooq.Public;
 import com.example.demo.jooq.tables.records.RevokedTokensRecord;
@@ -16,6 +17,7 @@ import java.util.UUID;
 
 import org.jooq.Condition;
 import org.jooq.Field;
+import org.jooq.Index;
 import org.jooq.Name;
 import org.jooq.PlainSQL;
 import org.jooq.QueryPart;
@@ -112,6 +114,11 @@ public class RevokedTokens extends TableImpl<RevokedTokensRecord> {
         return aliased() ? null : Public.PUBLIC;
     }
 
+    @Override
+    public List<Index> getIndexes() {
+        return Arrays.asList(Indexes.REVOKED_TOKENS_REVOKED_AT_IDX);
+    }
+
     @Override
     public UniqueKey<RevokedTokensRecord> getPrimaryKey() {
         return Keys.REVOKED_TOKENS_PKEY;
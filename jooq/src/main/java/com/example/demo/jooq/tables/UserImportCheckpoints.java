@@ -0,0 +1,241 @@
+/*
+ * This file is generated by jOOQ.
+ */
+package com.example.demo.jooq.tables;
+
+
+import com.example.demo.jooq.Keys;
+import com.example.demo.jooq.Public;
+import com.example.demo.jooq.tables.records.UserImportCheckpointsRecord;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.Name;
+import org.jooq.PlainSQL;
+import org.jooq.QueryPart;
+import org.jooq.SQL;
+import org.jooq.Schema;
+import org.jooq.Select;
+import org.jooq.Stringly;
+import org.jooq.Table;
+import org.jooq.TableField;
+import org.jooq.TableOptions;
+import org.jooq.UniqueKey;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.jooq.impl.TableImpl;
+
+
+/**
+ * This class is generated by jOOQ.
+ */
+@SuppressWarnings({ "all", "unchecked", "rawtypes", "this-escape" })
+public class UserImportCheckpoints extends TableImpl<UserImportCheckpointsRecord> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The reference instance of <code>public.user_import_checkpoints</code>
+     */
+    public static final UserImportCheckpoints USER_IMPORT_CHECKPOINTS = new UserImportCheckpoints();
+
+    /**
+     * The class holding records for this type
+     */
+    @Override
+    public Class<UserImportCheckpointsRecord> getRecordType() {
+        return UserImportCheckpointsRecord.class;
+    }
+
+    /**
+     * The column <code>public.user_import_checkpoints.job</code>.
+     */
+    public final TableField<UserImportCheckpointsRecord, String> JOB = createField(DSL.name("job"), SQLDataType.VARCHAR(255).nullable(false), this, "");
+
+    /**
+     * The column <code>public.user_import_checkpoints.line</code>.
+     */
+    public final TableField<UserImportCheckpointsRecord, Long> LINE = createField(DSL.name("line"), SQLDataType.BIGINT.nullable(false), this, "");
+
+    /**
+     * The column <code>public.user_import_checkpoints.imported</code>.
+     */
+    public final TableField<UserImportCheckpointsRecord, Long> IMPORTED = createField(DSL.name("imported"), SQLDataType.BIGINT.nullable(false).defaultValue(DSL.field(DSL.raw("0"), SQLDataType.BIGINT)), this, "");
+
+    /**
+     * The column <code>public.user_import_checkpoints.failed</code>.
+     */
+    public final TableField<UserImportCheckpointsRecord, Long> FAILED = createField(DSL.name("failed"), SQLDataType.BIGINT.nullable(false).defaultValue(DSL.field(DSL.raw("0"), SQLDataType.BIGINT)), this, "");
+
+    /**
+     * The column <code>public.user_import_checkpoints.updated_at</code>.
+     */
+    public final TableField<UserImportCheckpointsRecord, OffsetDateTime> UPDATED_AT = createField(DSL.name("updated_at"), SQLDataType.TIMESTAMPWITHTIMEZONE(6).nullable(false).defaultValue(DSL.field(DSL.raw("CURRENT_TIMESTAMP"), SQLDataType.TIMESTAMPWITHTIMEZONE)), this, "");
+
+    private UserImportCheckpoints(Name alias, Table<UserImportCheckpointsRecord> aliased) {
+        this(alias, aliased, (Field<?>[]) null, null);
+    }
+
+    private UserImportCheckpoints(Name alias, Table<UserImportCheckpointsRecord> aliased, Field<?>[] parameters, Condition where) {
+        super(alias, null, aliased, parameters, DSL.comment(""), TableOptions.table(), where);
+    }
+
+    /**
+     * Create an aliased <code>public.user_import_checkpoints</code> table
+     * reference
+     */
+    public UserImportCheckpoints(String alias) {
+        this(DSL.name(alias), USER_IMPORT_CHECKPOINTS);
+    }
+
+    /**
+     * Create an aliased <code>public.user_import_checkpoints</code> table
+     * reference
+     */
+    public UserImportCheckpoints(Name alias) {
+        this(alias, USER_IMPORT_CHECKPOINTS);
+    }
+
+    /**
+     * Create a <code>public.user_import_checkpoints</code> table reference
+     */
+    public UserImportCheckpoints() {
+        this(DSL.name("user_import_checkpoints"), null);
+    }
+
+    @Override
+    public Schema getSchema() {
+        return aliased() ? null : Public.PUBLIC;
+    }
+
+    @Override
+    public UniqueKey<UserImportCheckpointsRecord> getPrimaryKey() {
+        return Keys.USER_IMPORT_CHECKPOINTS_PKEY;
+    }
+
+    @Override
+    public UserImportCheckpoints as(String alias) {
+        return new UserImportCheckpoints(DSL.name(alias), this);
+    }
+
+    @Override
+    public UserImportCheckpoints as(Name alias) {
+        return new UserImportCheckpoints(alias, this);
+    }
+
+    @Override
+    public UserImportCheckpoints as(Table<?> alias) {
+        return new UserImportCheckpoints(alias.getQualifiedName(), this);
+    }
+
+    /**
+     * Rename this table
+     */
+    @Override
+    public UserImportCheckpoints rename(String name) {
+        return new UserImportCheckpoints(DSL.name(name), null);
+    }
+
+    /**
+     * Rename this table
+     */
+    @Override
+    public UserImportCheckpoints rename(Name name) {
+        return new UserImportCheckpoints(name, null);
+    }
+
+    /**
+     * Rename this table
+     */
+    @Override
+    public UserImportCheckpoints rename(Table<?> name) {
+        return new UserImportCheckpoints(name.getQualifiedName(), null);
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserImportCheckpoints where(Condition condition) {
+        return new UserImportCheckpoints(getQualifiedName(), aliased() ? this : null, null, condition);
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserImportCheckpoints where(Collection<? extends Condition> conditions) {
+        return where(DSL.and(conditions));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserImportCheckpoints where(Condition... conditions) {
+        return where(DSL.and(conditions));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserImportCheckpoints where(Field<Boolean> condition) {
+        return where(DSL.condition(condition));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    @PlainSQL
+    public UserImportCheckpoints where(SQL condition) {
+        return where(DSL.condition(condition));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    @PlainSQL
+    public UserImportCheckpoints where(@Stringly.SQL String condition) {
+        return where(DSL.condition(condition));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    @PlainSQL
+    public UserImportCheckpoints where(@Stringly.SQL String condition, Object... binds) {
+        return where(DSL.condition(condition, binds));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    @PlainSQL
+    public UserImportCheckpoints where(@Stringly.SQL String condition, QueryPart... parts) {
+        return where(DSL.condition(condition, parts));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserImportCheckpoints whereExists(Select<?> select) {
+        return where(DSL.exists(select));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserImportCheckpoints whereNotExists(Select<?> select) {
+        return where(DSL.notExists(select));
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * This file is generated by jOOQ.
+ */
+package com.example.demo.jooq.tables;
+
+
+import com.example.demo.jooq.Indexes;
+import com.example.demo.jooq.Keys;
+import com.example.demo.jooq.Public;
+import com.example.demo.jooq.tables.records.UserTokenCutoffsRecord;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.Index;
+import org.jooq.Name;
+import org.jooq.PlainSQL;
+import org.jooq.QueryPart;
+import org.jooq.SQL;
+import org.jooq.Schema;
+import org.jooq.Select;
+import org.jooq.Stringly;
+import org.jooq.Table;
+import org.jooq.TableField;
+import org.jooq.TableOptions;
+import org.jooq.UniqueKey;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.jooq.impl.TableImpl;
+
+
+/**
+ * This class is generated by jOOQ.
+ */
+@SuppressWarnings({ "all", "unchecked", "rawtypes", "this-escape" })
+public class UserTokenCutoffs extends TableImpl<UserTokenCutoffsRecord> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The reference instance of <code>public.user_token_cutoffs</code>
+     */
+    public static final UserTokenCutoffs USER_TOKEN_CUTOFFS = new UserTokenCutoffs();
+
+    /**
+     * The class holding records for this type
+     */
+    @Override
+    public Class<UserTokenCutoffsRecord> getRecordType() {
+        return UserTokenCutoffsRecord.class;
+    }
+
+    /**
+     * The column <code>public.user_token_cutoffs.username</code>.
+     */
+    public final TableField<UserTokenCutoffsRecord, String> USERNAME = createField(DSL.name("username"), SQLDataType.VARCHAR(255).nullable(false), this, "");
+
+    /**
+     * The column <code>public.user_token_cutoffs.not_before</code>.
+     */
+    public final TableField<UserTokenCutoffsRecord, OffsetDateTime> NOT_BEFORE = createField(DSL.name("not_before"), SQLDataType.TIMESTAMPWITHTIMEZONE(6).nullable(false), this, "");
+
+    /**
+     * The column <code>public.user_token_cutoffs.updated_at</code>.
+     */
+    public final TableField<UserTokenCutoffsRecord, OffsetDateTime> UPDATED_AT = createField(DSL.name("updated_at"), SQLDataType.TIMESTAMPWITHTIMEZONE(6).nullable(false).defaultValue(DSL.field(DSL.raw("CURRENT_TIMESTAMP"), SQLDataType.TIMESTAMPWITHTIMEZONE)), this, "");
+
+    private UserTokenCutoffs(Name alias, Table<UserTokenCutoffsRecord> aliased) {
+        this(alias, aliased, (Field<?>[]) null, null);
+    }
+
+    private UserTokenCutoffs(Name alias, Table<UserTokenCutoffsRecord> aliased, Field<?>[] parameters, Condition where) {
+        super(alias, null, aliased, parameters, DSL.comment(""), TableOptions.table(), where);
+    }
+
+    /**
+     * Create an aliased <code>public.user_token_cutoffs</code> table reference
+     */
+    public UserTokenCutoffs(String alias) {
+        this(DSL.name(alias), USER_TOKEN_CUTOFFS);
+    }
+
+    /**
+     * Create an aliased <code>public.user_token_cutoffs</code> table reference
+     */
+    public UserTokenCutoffs(Name alias) {
+        this(alias, USER_TOKEN_CUTOFFS);
+    }
+
+    /**
+     * Create a <code>public.user_token_cutoffs</code> table reference
+     */
+    public UserTokenCutoffs() {
+        this(DSL.name("user_token_cutoffs"), null);
+    }
+
+    @Override
+    public Schema getSchema() {
+        return aliased() ? null : Public.PUBLIC;
+    }
+
+    @Override
+    public List<Index> getIndexes() {
+        return Arrays.asList(Indexes.USER_TOKEN_CUTOFFS_UPDATED_AT_IDX);
+    }
+
+    @Override
+    public UniqueKey<UserTokenCutoffsRecord> getPrimaryKey() {
+        return Keys.USER_TOKEN_CUTOFFS_PKEY;
+    }
+
+    @Override
+    public UserTokenCutoffs as(String alias) {
+        return new UserTokenCutoffs(DSL.name(alias), this);
+    }
+
+    @Override
+    public UserTokenCutoffs as(Name alias) {
+        return new UserTokenCutoffs(alias, this);
+    }
+
+    @Override
+    public UserTokenCutoffs as(Table<?> alias) {
+        return new UserTokenCutoffs(alias.getQualifiedName(), this);
+    }
+
+    /**
+     * Rename this table
+     */
+    @Override
+    public UserTokenCutoffs rename(String name) {
+        return new UserTokenCutoffs(DSL.name(name), null);
+    }
+
+    /**
+     * Rename this table
+     */
+    @Override
+    public UserTokenCutoffs rename(Name name) {
+        return new UserTokenCutoffs(name, null);
+    }
+
+    /**
+     * Rename this table
+     */
+    @Override
+    public UserTokenCutoffs rename(Table<?> name) {
+        return new UserTokenCutoffs(name.getQualifiedName(), null);
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserTokenCutoffs where(Condition condition) {
+        return new UserTokenCutoffs(getQualifiedName(), aliased() ? this : null, null, condition);
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserTokenCutoffs where(Collection<? extends Condition> conditions) {
+        return where(DSL.and(conditions));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserTokenCutoffs where(Condition... conditions) {
+        return where(DSL.and(conditions));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserTokenCutoffs where(Field<Boolean> condition) {
+        return where(DSL.condition(condition));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    @PlainSQL
+    public UserTokenCutoffs where(SQL condition) {
+        return where(DSL.condition(condition));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    @PlainSQL
+    public UserTokenCutoffs where(@Stringly.SQL String condition) {
+        return where(DSL.condition(condition));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    @PlainSQL
+    public UserTokenCutoffs where(@Stringly.SQL String condition, Object... binds) {
+        return where(DSL.condition(condition, binds));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    @PlainSQL
+    public UserTokenCutoffs where(@Stringly.SQL String condition, QueryPart... parts) {
+        return where(DSL.condition(condition, parts));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserTokenCutoffs whereExists(Select<?> select) {
+        return where(DSL.exists(select));
+    }
+
+    /**
+     * Create an inline derived table from this table
+     */
+    @Override
+    public UserTokenCutoffs whereNotExists(Select<?> select) {
+        return where(DSL.notExists(select));
+    }
+}
@@ -4,6 +4,7 @@
 package com.example.demo.jooq.tables;
 
 
+import com.example.demo.jooq.Indexes;
 import com.example.demo.jooq.Keys;
 import com.example.demo.jooq.Public;
 import com.example.demo.jooq.tables.records.UsersRecord;
@@ -16,6 +17,7 @@ import java.util.UUID;
 
 import org.jooq.Condition;
 import org.jooq.Field;
+import org.jooq.Index;
 import org.jooq.Name;
 import org.jooq.PlainSQL;
 import org.jooq.QueryPart;
@@ -122,6 +124,11 @@ public class Users extends TableImpl<UsersRecord> {
         return aliased() ? null : Public.PUBLIC;
     }
 
+    @Override
+    public List<Index> getIndexes() {
+        return Arrays.asList(Indexes.USERS_EMAIL_C_ID_IDX, Indexes.USERS_USERNAME_C_ID_IDX);
+    }
+
     @Override
     public UniqueKey<UsersRecord> getPrimaryKey() {
         return Keys.USERS_PKEY;
@@ -0,0 +1,135 @@
+/*
+ * This file is generated by jOOQ.
+ */
+package com.example.demo.jooq.tables.daos;
+
+
+import com.example.demo.jooq.tables.UserImportCheckpoints;
+import com.example.demo.jooq.tables.records.UserImportCheckpointsRecord;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.jooq.Configuration;
+import org.jooq.impl.DAOImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+
+/**
+ * This class is generated by jOOQ.
+ */
+@SuppressWarnings({ "all", "unchecked", "rawtypes", "this-escape" })
+@Repository
+public class UserImportCheckpointsDao extends DAOImpl<UserImportCheckpointsRecord, com.example.demo.jooq.tables.pojos.UserImportCheckpoints, String> {
+
+    /**
+     * Create a new UserImportCheckpointsDao without any configuration
+     */
+    public UserImportCheckpointsDao() {
+        super(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS, com.example.demo.jooq.tables.pojos.UserImportCheckpoints.class);
+    }
+
+    /**
+     * Create a new UserImportCheckpointsDao with an attached configuration
+     */
+    @Autowired
+    public UserImportCheckpointsDao(Configuration configuration) {
+        super(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS, com.example.demo.jooq.tables.pojos.UserImportCheckpoints.class, configuration);
+    }
+
+    @Override
+    public String getId(com.example.demo.jooq.tables.pojos.UserImportCheckpoints object) {
+        return object.getJob();
+    }
+
+    /**
+     * Fetch records that have <code>job BETWEEN lowerInclusive AND
+     * upperInclusive</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserImportCheckpoints> fetchRangeOfJob(String lowerInclusive, String upperInclusive) {
+        return fetchRange(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.JOB, lowerInclusive, upperInclusive);
+    }
+
+    /**
+     * Fetch records that have <code>job IN (values)</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserImportCheckpoints> fetchByJob(String... values) {
+        return fetch(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.JOB, values);
+    }
+
+    /**
+     * Fetch a unique record that has <code>job = value</code>
+     */
+    public com.example.demo.jooq.tables.pojos.UserImportCheckpoints fetchOneByJob(String value) {
+        return fetchOne(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.JOB, value);
+    }
+
+    /**
+     * Fetch a unique record that has <code>job = value</code>
+     */
+    public Optional<com.example.demo.jooq.tables.pojos.UserImportCheckpoints> fetchOptionalByJob(String value) {
+        return fetchOptional(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.JOB, value);
+    }
+
+    /**
+     * Fetch records that have <code>line BETWEEN lowerInclusive AND
+     * upperInclusive</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserImportCheckpoints> fetchRangeOfLine(Long lowerInclusive, Long upperInclusive) {
+        return fetchRange(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.LINE, lowerInclusive, upperInclusive);
+    }
+
+    /**
+     * Fetch records that have <code>line IN (values)</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserImportCheckpoints> fetchByLine(Long... values) {
+        return fetch(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.LINE, values);
+    }
+
+    /**
+     * Fetch records that have <code>imported BETWEEN lowerInclusive AND
+     * upperInclusive</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserImportCheckpoints> fetchRangeOfImported(Long lowerInclusive, Long upperInclusive) {
+        return fetchRange(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.IMPORTED, lowerInclusive, upperInclusive);
+    }
+
+    /**
+     * Fetch records that have <code>imported IN (values)</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserImportCheckpoints> fetchByImported(Long... values) {
+        return fetch(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.IMPORTED, values);
+    }
+
+    /**
+     * Fetch records that have <code>failed BETWEEN lowerInclusive AND
+     * upperInclusive</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserImportCheckpoints> fetchRangeOfFailed(Long lowerInclusive, Long upperInclusive) {
+        return fetchRange(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.FAILED, lowerInclusive, upperInclusive);
+    }
+
+    /**
+     * Fetch records that have <code>failed IN (values)</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserImportCheckpoints> fetchByFailed(Long... values) {
+        return fetch(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.FAILED, values);
+    }
+
+    /**
+     * Fetch records that have <code>updated_at BETWEEN lowerInclusive AND
+     * upperInclusive</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserImportCheckpoints> fetchRangeOfUpdatedAt(OffsetDateTime lowerInclusive, OffsetDateTime upperInclusive) {
+        return fetchRange(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.UPDATED_AT, lowerInclusive, upperInclusive);
+    }
+
+    /**
+     * Fetch records that have <code>updated_at IN (values)</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserImportCheckpoints> fetchByUpdatedAt(OffsetDateTime... values) {
+        return fetch(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS.UPDATED_AT, values);
+    }
+}
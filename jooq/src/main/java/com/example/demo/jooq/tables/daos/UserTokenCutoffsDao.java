@@ -0,0 +1,105 @@
+/*
+ * This file is generated by jOOQ.
+ */
+package com.example.demo.jooq.tables.daos;
+
+
+import com.example.demo.jooq.tables.UserTokenCutoffs;
+import com.example.demo.jooq.tables.records.UserTokenCutoffsRecord;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.jooq.Configuration;
+import org.jooq.impl.DAOImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+
+/**
+ * This class is generated by jOOQ.
+ */
+@SuppressWarnings({ "all", "unchecked", "rawtypes", "this-escape" })
+@Repository
+public class UserTokenCutoffsDao extends DAOImpl<UserTokenCutoffsRecord, com.example.demo.jooq.tables.pojos.UserTokenCutoffs, String> {
+
+    /**
+     * Create a new UserTokenCutoffsDao without any configuration
+     */
+    public UserTokenCutoffsDao() {
+        super(UserTokenCutoffs.USER_TOKEN_CUTOFFS, com.example.demo.jooq.tables.pojos.UserTokenCutoffs.class);
+    }
+
+    /**
+     * Create a new UserTokenCutoffsDao with an attached configuration
+     */
+    @Autowired
+    public UserTokenCutoffsDao(Configuration configuration) {
+        super(UserTokenCutoffs.USER_TOKEN_CUTOFFS, com.example.demo.jooq.tables.pojos.UserTokenCutoffs.class, configuration);
+    }
+
+    @Override
+    public String getId(com.example.demo.jooq.tables.pojos.UserTokenCutoffs object) {
+        return object.getUsername();
+    }
+
+    /**
+     * Fetch records that have <code>username BETWEEN lowerInclusive AND
+     * upperInclusive</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserTokenCutoffs> fetchRangeOfUsername(String lowerInclusive, String upperInclusive) {
+        return fetchRange(UserTokenCutoffs.USER_TOKEN_CUTOFFS.USERNAME, lowerInclusive, upperInclusive);
+    }
+
+    /**
+     * Fetch records that have <code>username IN (values)</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserTokenCutoffs> fetchByUsername(String... values) {
+        return fetch(UserTokenCutoffs.USER_TOKEN_CUTOFFS.USERNAME, values);
+    }
+
+    /**
+     * Fetch a unique record that has <code>username = value</code>
+     */
+    public com.example.demo.jooq.tables.pojos.UserTokenCutoffs fetchOneByUsername(String value) {
+        return fetchOne(UserTokenCutoffs.USER_TOKEN_CUTOFFS.USERNAME, value);
+    }
+
+    /**
+     * Fetch a unique record that has <code>username = value</code>
+     */
+    public Optional<com.example.demo.jooq.tables.pojos.UserTokenCutoffs> fetchOptionalByUsername(String value) {
+        return fetchOptional(UserTokenCutoffs.USER_TOKEN_CUTOFFS.USERNAME, value);
+    }
+
+    /**
+     * Fetch records that have <code>not_before BETWEEN lowerInclusive AND
+     * upperInclusive</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserTokenCutoffs> fetchRangeOfNotBefore(OffsetDateTime lowerInclusive, OffsetDateTime upperInclusive) {
+        return fetchRange(UserTokenCutoffs.USER_TOKEN_CUTOFFS.NOT_BEFORE, lowerInclusive, upperInclusive);
+    }
+
+    /**
+     * Fetch records that have <code>not_before IN (values)</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserTokenCutoffs> fetchByNotBefore(OffsetDateTime... values) {
+        return fetch(UserTokenCutoffs.USER_TOKEN_CUTOFFS.NOT_BEFORE, values);
+    }
+
+    /**
+     * Fetch records that have <code>updated_at BETWEEN lowerInclusive AND
+     * upperInclusive</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserTokenCutoffs> fetchRangeOfUpdatedAt(OffsetDateTime lowerInclusive, OffsetDateTime upperInclusive) {
+        return fetchRange(UserTokenCutoffs.USER_TOKEN_CUTOFFS.UPDATED_AT, lowerInclusive, upperInclusive);
+    }
+
+    /**
+     * Fetch records that have <code>updated_at IN (values)</code>
+     */
+    public List<com.example.demo.jooq.tables.pojos.UserTokenCutoffs> fetchByUpdatedAt(OffsetDateTime... values) {
+        return fetch(UserTokenCutoffs.USER_TOKEN_CUTOFFS.UPDATED_AT, values);
+    }
+}
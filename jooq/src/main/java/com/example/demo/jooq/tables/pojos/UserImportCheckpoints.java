@@ -0,0 +1,149 @@
+/*
+ * This file is generated by jOOQ.
+ */
+package com.example.demo.jooq.tables.pojos;
+
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+
+/**
+ * This class is generated by jOOQ.
+ */
+@SuppressWarnings({ "all", "unchecked", "rawtypes", "this-escape" })
+public class UserImportCheckpoints implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String job;
+    private final Long line;
+    private final Long imported;
+    private final Long failed;
+    private final OffsetDateTime updatedAt;
+
+    public UserImportCheckpoints(UserImportCheckpoints value) {
+        this.job = value.job;
+        this.line = value.line;
+        this.imported = value.imported;
+        this.failed = value.failed;
+        this.updatedAt = value.updatedAt;
+    }
+
+    public UserImportCheckpoints(
+        String job,
+        Long line,
+        Long imported,
+        Long failed,
+        OffsetDateTime updatedAt
+    ) {
+        this.job = job;
+        this.line = line;
+        this.imported = imported;
+        this.failed = failed;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Getter for <code>public.user_import_checkpoints.job</code>.
+     */
+    public String getJob() {
+        return this.job;
+    }
+
+    /**
+     * Getter for <code>public.user_import_checkpoints.line</code>.
+     */
+    public Long getLine() {
+        return this.line;
+    }
+
+    /**
+     * Getter for <code>public.user_import_checkpoints.imported</code>.
+     */
+    public Long getImported() {
+        return this.imported;
+    }
+
+    /**
+     * Getter for <code>public.user_import_checkpoints.failed</code>.
+     */
+    public Long getFailed() {
+        return this.failed;
+    }
+
+    /**
+     * Getter for <code>public.user_import_checkpoints.updated_at</code>.
+     */
+    public OffsetDateTime getUpdatedAt() {
+        return this.updatedAt;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        final UserImportCheckpoints other = (UserImportCheckpoints) obj;
+        if (this.job == null) {
+            if (other.job != null)
+                return false;
+        }
+        else if (!this.job.equals(other.job))
+            return false;
+        if (this.line == null) {
+            if (other.line != null)
+                return false;
+        }
+        else if (!this.line.equals(other.line))
+            return false;
+        if (this.imported == null) {
+            if (other.imported != null)
+                return false;
+        }
+        else if (!this.imported.equals(other.imported))
+            return false;
+        if (this.failed == null) {
+            if (other.failed != null)
+                return false;
+        }
+        else if (!this.failed.equals(other.failed))
+            return false;
+        if (this.updatedAt == null) {
+            if (other.updatedAt != null)
+                return false;
+        }
+        else if (!this.updatedAt.equals(other.updatedAt))
+            return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((this.job == null) ? 0 : this.job.hashCode());
+        result = prime * result + ((this.line == null) ? 0 : this.line.hashCode());
+        result = prime * result + ((this.imported == null) ? 0 : this.imported.hashCode());
+        result = prime * result + ((this.failed == null) ? 0 : this.failed.hashCode());
+        result = prime * result + ((this.updatedAt == null) ? 0 : this.updatedAt.hashCode());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("UserImportCheckpoints (");
+
+        sb.append(job);
+        sb.append(", ").append(line);
+        sb.append(", ").append(imported);
+        sb.append(", ").append(failed);
+        sb.append(", ").append(updatedAt);
+
+        sb.append(")");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is generated by jOOQ.
+ */
+package com.example.demo.jooq.tables.pojos;
+
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+
+/**
+ * This class is generated by jOOQ.
+ */
+@SuppressWarnings({ "all", "unchecked", "rawtypes", "this-escape" })
+public class UserTokenCutoffs implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private final OffsetDateTime notBefore;
+    private final OffsetDateTime updatedAt;
+
+    public UserTokenCutoffs(UserTokenCutoffs value) {
+        this.username = value.username;
+        this.notBefore = value.notBefore;
+        this.updatedAt = value.updatedAt;
+    }
+
+    public UserTokenCutoffs(
+        String username,
+        OffsetDateTime notBefore,
+        OffsetDateTime updatedAt
+    ) {
+        this.username = username;
+        this.notBefore = notBefore;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Getter for <code>public.user_token_cutoffs.username</code>.
+     */
+    public String getUsername() {
+        return this.username;
+    }
+
+    /**
+     * Getter for <code>public.user_token_cutoffs.not_before</code>.
+     */
+    public OffsetDateTime getNotBefore() {
+        return this.notBefore;
+    }
+
+    /**
+     * Getter for <code>public.user_token_cutoffs.updated_at</code>.
+     */
+    public OffsetDateTime getUpdatedAt() {
+        return this.updatedAt;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        final UserTokenCutoffs other = (UserTokenCutoffs) obj;
+        if (this.username == null) {
+            if (other.username != null)
+                return false;
+        }
+        else if (!this.username.equals(other.username))
+            return false;
+        if (this.notBefore == null) {
+            if (other.notBefore != null)
+                return false;
+        }
+        else if (!this.notBefore.equals(other.notBefore))
+            return false;
+        if (this.updatedAt == null) {
+            if (other.updatedAt != null)
+                return false;
+        }
+        else if (!this.updatedAt.equals(other.updatedAt))
+            return false;
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((this.username == null) ? 0 : this.username.hashCode());
+        result = prime * result + ((this.notBefore == null) ? 0 : this.notBefore.hashCode());
+        result = prime * result + ((this.updatedAt == null) ? 0 : this.updatedAt.hashCode());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("UserTokenCutoffs (");
+
+        sb.append(username);
+        sb.append(", ").append(notBefore);
+        sb.append(", ").append(updatedAt);
+
+        sb.append(")");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * This file is generated by jOOQ.
+ */
+package com.example.demo.jooq.tables.records;
+
+
+import com.example.demo.jooq.tables.UserImportCheckpoints;
+
+import java.time.OffsetDateTime;
+
+import org.jooq.Record1;
+import org.jooq.impl.UpdatableRecordImpl;
+
+
+/**
+ * This class is generated by jOOQ.
+ */
+@SuppressWarnings({ "all", "unchecked", "rawtypes", "this-escape" })
+public class UserImportCheckpointsRecord extends UpdatableRecordImpl<UserImportCheckpointsRecord> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Setter for <code>public.user_import_checkpoints.job</code>.
+     */
+    public UserImportCheckpointsRecord setJob(String value) {
+        set(0, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>public.user_import_checkpoints.job</code>.
+     */
+    public String getJob() {
+        return (String) get(0);
+    }
+
+    /**
+     * Setter for <code>public.user_import_checkpoints.line</code>.
+     */
+    public UserImportCheckpointsRecord setLine(Long value) {
+        set(1, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>public.user_import_checkpoints.line</code>.
+     */
+    public Long getLine() {
+        return (Long) get(1);
+    }
+
+    /**
+     * Setter for <code>public.user_import_checkpoints.imported</code>.
+     */
+    public UserImportCheckpointsRecord setImported(Long value) {
+        set(2, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>public.user_import_checkpoints.imported</code>.
+     */
+    public Long getImported() {
+        return (Long) get(2);
+    }
+
+    /**
+     * Setter for <code>public.user_import_checkpoints.failed</code>.
+     */
+    public UserImportCheckpointsRecord setFailed(Long value) {
+        set(3, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>public.user_import_checkpoints.failed</code>.
+     */
+    public Long getFailed() {
+        return (Long) get(3);
+    }
+
+    /**
+     * Setter for <code>public.user_import_checkpoints.updated_at</code>.
+     */
+    public UserImportCheckpointsRecord setUpdatedAt(OffsetDateTime value) {
+        set(4, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>public.user_import_checkpoints.updated_at</code>.
+     */
+    public OffsetDateTime getUpdatedAt() {
+        return (OffsetDateTime) get(4);
+    }
+
+    // -------------------------------------------------------------------------
+    // Primary key information
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Record1<String> key() {
+        return (Record1) super.key();
+    }
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    /**
+     * Create a detached UserImportCheckpointsRecord
+     */
+    public UserImportCheckpointsRecord() {
+        super(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS);
+    }
+
+    /**
+     * Create a detached, initialised UserImportCheckpointsRecord
+     */
+    public UserImportCheckpointsRecord(String job, Long line, Long imported, Long failed, OffsetDateTime updatedAt) {
+        super(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS);
+
+        setJob(job);
+        setLine(line);
+        setImported(imported);
+        setFailed(failed);
+        setUpdatedAt(updatedAt);
+        resetChangedOnNotNull();
+    }
+
+    /**
+     * Create a detached, initialised UserImportCheckpointsRecord
+     */
+    public UserImportCheckpointsRecord(com.example.demo.jooq.tables.pojos.UserImportCheckpoints value) {
+        super(UserImportCheckpoints.USER_IMPORT_CHECKPOINTS);
+
+        if (value != null) {
+            setJob(value.getJob());
+            setLine(value.getLine());
+            setImported(value.getImported());
+            setFailed(value.getFailed());
+            setUpdatedAt(value.getUpdatedAt());
+            resetChangedOnNotNull();
+        }
+    }
+}
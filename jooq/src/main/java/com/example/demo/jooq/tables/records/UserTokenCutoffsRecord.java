@@ -0,0 +1,113 @@
+/*
+ * This file is generated by jOOQ.
+ */
+package com.example.demo.jooq.tables.records;
+
+
+import com.example.demo.jooq.tables.UserTokenCutoffs;
+
+import java.time.OffsetDateTime;
+
+import org.jooq.Record1;
+import org.jooq.impl.UpdatableRecordImpl;
+
+
+/**
+ * This class is generated by jOOQ.
+ */
+@SuppressWarnings({ "all", "unchecked", "rawtypes", "this-escape" })
+public class UserTokenCutoffsRecord extends UpdatableRecordImpl<UserTokenCutoffsRecord> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Setter for <code>public.user_token_cutoffs.username</code>.
+     */
+    public UserTokenCutoffsRecord setUsername(String value) {
+        set(0, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>public.user_token_cutoffs.username</code>.
+     */
+    public String getUsername() {
+        return (String) get(0);
+    }
+
+    /**
+     * Setter for <code>public.user_token_cutoffs.not_before</code>.
+     */
+    public UserTokenCutoffsRecord setNotBefore(OffsetDateTime value) {
+        set(1, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>public.user_token_cutoffs.not_before</code>.
+     */
+    public OffsetDateTime getNotBefore() {
+        return (OffsetDateTime) get(1);
+    }
+
+    /**
+     * Setter for <code>public.user_token_cutoffs.updated_at</code>.
+     */
+    public UserTokenCutoffsRecord setUpdatedAt(OffsetDateTime value) {
+        set(2, value);
+        return this;
+    }
+
+    /**
+     * Getter for <code>public.user_token_cutoffs.updated_at</code>.
+     */
+    public OffsetDateTime getUpdatedAt() {
+        return (OffsetDateTime) get(2);
+    }
+
+    // -------------------------------------------------------------------------
+    // Primary key information
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Record1<String> key() {
+        return (Record1) super.key();
+    }
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    /**
+     * Create a detached UserTokenCutoffsRecord
+     */
+    public UserTokenCutoffsRecord() {
+        super(UserTokenCutoffs.USER_TOKEN_CUTOFFS);
+    }
+
+    /**
+     * Create a detached, initialised UserTokenCutoffsRecord
+     */
+    public UserTokenCutoffsRecord(String username, OffsetDateTime notBefore, OffsetDateTime updatedAt) {
+        super(UserTokenCutoffs.USER_TOKEN_CUTOFFS);
+
+        setUsername(username);
+        setNotBefore(notBefore);
+        setUpdatedAt(updatedAt);
+        resetChangedOnNotNull();
+    }
+
+    /**
+     * Create a detached, initialised UserTokenCutoffsRecord
+     */
+    public UserTokenCutoffsRecord(com.example.demo.jooq.tables.pojos.UserTokenCutoffs value) {
+        super(UserTokenCutoffs.USER_TOKEN_CUTOFFS);
+
+        if (value != null) {
+            setUsername(value.getUsername());
+            setNotBefore(value.getNotBefore());
+            setUpdatedAt(value.getUpdatedAt());
+            resetChangedOnNotNull();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.demo;
+
+import com.example.demo.loadtest.DatabaseStats;
+import com.example.demo.loadtest.Endpoint;
+import com.example.demo.loadtest.EndpointStats;
+import com.example.demo.loadtest.LoadDriver;
+import com.example.demo.loadtest.LoadReport;
+import com.example.demo.loadtest.LoadTestOptions;
+import com.example.demo.loadtest.QueryCounter;
+import com.example.demo.loadtest.QueryCountingConfiguration;
+import com.example.demo.loadtest.RampStep;
+import com.example.demo.loadtest.VirtualUser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import javax.sql.DataSource;
+import org.springframework.boot.SpringApplication;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Serverを起動して負荷をかけ、レポートを書く。{@code gradle :server:loadTest} から起動する。
+ *
+ * <p>流れ: 起動 → 仮想ユーザーのサインアップ → warmup → 計測値のリセット → 計測。rampモードでは計測をrateを上げながら繰り返す。
+ */
+public class LoadTest {
+
+  public static void main(String[] args) throws Exception {
+    var options = LoadTestOptions.parse(args);
+
+    var serverArgs = new ArrayList<String>();
+    serverArgs.add("--server.port=0");
+    if (options.serverArgs().stream().noneMatch(a -> a.startsWith("--logging.level.root="))) {
+      serverArgs.add("--logging.level.root=WARN");
+    }
+    serverArgs.addAll(options.serverArgs());
+
+    var application =
+        options.container()
+            ? SpringApplication.from(Server::main)
+                .with(TestcontainersConfiguration.class, QueryCountingConfiguration.class)
+            : SpringApplication.from(Server::main).with(QueryCountingConfiguration.class);
+
+    try (var context = application.run(serverArgs.toArray(String[]::new)).getApplicationContext()) {
+      var port =
+          Objects.requireNonNull(
+              context.getEnvironment().getProperty("local.server.port", Integer.class));
+      var baseUri = URI.create("http://localhost:" + port);
+      var queryCounter = context.getBean(QueryCounter.class);
+      var jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+
+      var stats = new EnumMap<Endpoint, EndpointStats>(Endpoint.class);
+      options.mix().keySet().forEach(endpoint -> stats.put(endpoint, new EndpointStats()));
+      stats.putIfAbsent(Endpoint.SIGNUP, new EndpointStats());
+
+      try (var http =
+          HttpClient.newBuilder()
+              .executor(Executors.newVirtualThreadPerTaskExecutor())
+              .connectTimeout(Duration.ofSeconds(5))
+              .build()) {
+        var json = new ObjectMapper();
+        var runId = Long.toString(System.currentTimeMillis(), 36);
+        var users = new ArrayList<VirtualUser>();
+        for (int i = 0; i < options.concurrency(); i++) {
+          var user = new VirtualUser(http, baseUri, json, stats, runId);
+          user.register();
+          users.add(user);
+        }
+        var driver = new LoadDriver(options, users);
+
+        System.out.printf("Warming up for %s%n", options.warmup());
+        driver.run(options.warmup());
+
+        var steps = new ArrayList<RampStep>();
+        Measurement measurement;
+        if (options.model() == LoadTestOptions.Model.RAMP) {
+          // SLOを外れるまでrateを上げる。レポートのエンドポイントごとの値は最後の段のもの
+          double rate = options.rate();
+          do {
+            System.out.printf("Running %.1f req/s for %s%n", rate, options.duration());
+            double stepRate = rate;
+            measurement =
+                measure(
+                    stats, queryCounter, jdbc, () -> driver.runOpen(options.duration(), stepRate));
+            var step = RampStep.of(rate, measurement.elapsed(), stats.values(), options);
+            steps.add(step);
+            System.out.printf(
+                "  throughput=%.1f req/s, p99=%.2f ms, errors=%.2f%%%n",
+                step.throughput(), step.p99Ms(), step.errorRate() * 100);
+            if (!step.withinSlo()) {
+              break;
+            }
+            rate += options.rateStep();
+          } while (rate <= options.maxRate());
+        } else {
+          System.out.printf("Running %s model for %s%n", options.model(), options.duration());
+          measurement = measure(stats, queryCounter, jdbc, () -> driver.run(options.duration()));
+        }
+
+        if (!options.mix().containsKey(Endpoint.SIGNUP)) {
+          stats.remove(Endpoint.SIGNUP);
+        }
+        var report =
+            new LoadReport(
+                options,
+                measurement.startedAt(),
+                measurement.elapsed(),
+                stats,
+                measurement.queries(),
+                measurement.database(),
+                steps);
+        report.print(System.out);
+        System.out.printf("%nReport written to %s%n", report.write());
+      }
+    }
+  }
+
+  private interface Load {
+    void run() throws InterruptedException;
+  }
+
+  private record Measurement(
+      OffsetDateTime startedAt,
+      Duration elapsed,
+      Map<String, Long> queries,
+      DatabaseStats database) {}
+
+  /** 計測値をリセットしてから {@code load} を実行する */
+  private static Measurement measure(
+      Map<Endpoint, EndpointStats> stats, QueryCounter queryCounter, JdbcTemplate jdbc, Load load)
+      throws InterruptedException {
+    stats.values().forEach(EndpointStats::reset);
+    queryCounter.snapshotAndReset();
+    var databaseBefore = DatabaseStats.read(jdbc);
+    var startedAt = OffsetDateTime.now(ZoneOffset.UTC);
+    long start = System.nanoTime();
+
+    load.run();
+
+    var elapsed = Duration.ofNanos(System.nanoTime() - start);
+    var queries = queryCounter.snapshotAndReset();
+    var database = DatabaseStats.read(jdbc).minus(databaseBefore);
+    return new Measurement(startedAt, elapsed, queries, database);
+  }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.loadtest;
+
+import java.util.Objects;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@code pg_stat_database} の累積値。差を取って使う。
+ *
+ * <p>他の接続の統計は遅れて反映される (アイドルなら最大10秒) ので、DB全体の目安として使う。エンドポイントごとの正確な数は {@link
+ * QueryCounter} で取る。
+ */
+public record DatabaseStats(
+    long xactCommit,
+    long xactRollback,
+    long tupReturned,
+    long tupFetched,
+    long tupInserted,
+    long tupUpdated,
+    long tupDeleted) {
+
+  public static DatabaseStats read(JdbcTemplate jdbc) {
+    // 統計はトランザクション内でキャッシュされるので、読む前に捨てる
+    jdbc.execute("SELECT pg_stat_clear_snapshot()");
+    return Objects.requireNonNull(
+        jdbc.queryForObject(
+            """
+            SELECT xact_commit, xact_rollback, tup_returned, tup_fetched,
+                   tup_inserted, tup_updated, tup_deleted
+            FROM pg_stat_database WHERE datname = current_database()
+            """,
+            (rs, i) ->
+                new DatabaseStats(
+                    rs.getLong(1),
+                    rs.getLong(2),
+                    rs.getLong(3),
+                    rs.getLong(4),
+                    rs.getLong(5),
+                    rs.getLong(6),
+                    rs.getLong(7))));
+  }
+
+  public DatabaseStats minus(DatabaseStats before) {
+    return new DatabaseStats(
+        xactCommit - before.xactCommit,
+        xactRollback - before.xactRollback,
+        tupReturned - before.tupReturned,
+        tupFetched - before.tupFetched,
+        tupInserted - before.tupInserted,
+        tupUpdated - before.tupUpdated,
+        tupDeleted - before.tupDeleted);
+  }
+}
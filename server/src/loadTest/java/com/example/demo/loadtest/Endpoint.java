@@ -0,0 +1,24 @@
+package com.example.demo.loadtest;
+
+import java.util.Locale;
+
+/** 負荷をかけるエンドポイント */
+public enum Endpoint {
+  SIGNUP,
+  LOGIN,
+  LOGOUT,
+  CHANGE_PASSWORD;
+
+  /** {@code --mix} やレポートで使う名前 */
+  public String label() {
+    return name().toLowerCase(Locale.ROOT).replace('_', '-');
+  }
+
+  public String path() {
+    return "/api/auth/" + label();
+  }
+
+  public static Endpoint of(String label) {
+    return valueOf(label.toUpperCase(Locale.ROOT).replace('-', '_'));
+  }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/** エンドポイント1つ分の計測結果。レイテンシはマイクロ秒で持つ。 */
+public final class EndpointStats {
+  /** 接続エラーやタイムアウトなど、ステータスコードがない失敗 */
+  public static final int TRANSPORT_ERROR = -1;
+
+  private final ConcurrentHistogram latency = new ConcurrentHistogram(3);
+  private final LongAdder errors = new LongAdder();
+  private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+  public EndpointStats() {
+    latency.setAutoResize(true);
+  }
+
+  public void record(long elapsedNanos, int status) {
+    latency.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+    statuses.computeIfAbsent(status, k -> new LongAdder()).increment();
+    if (status / 100 != 2) {
+      errors.increment();
+    }
+  }
+
+  public void reset() {
+    latency.reset();
+    errors.reset();
+    statuses.clear();
+  }
+
+  public Histogram latency() {
+    return latency.copy();
+  }
+
+  public long errors() {
+    return errors.sum();
+  }
+
+  public Map<Integer, Long> statuses() {
+    var result = new TreeMap<Integer, Long>();
+    statuses.forEach((status, count) -> result.put(status, count.sum()));
+    return result;
+  }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.loadtest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 仮想ユーザーに {@code mix} の割合でエンドポイントを叩かせる。
+ *
+ * <p>closedモードは仮想ユーザーごとにスレッドを1つ立て、応答が返ってから次を投げる。サーバーが遅くなると投げる量も減る。
+ *
+ * <p>openモードは予定した時刻に投げ、レイテンシは予定時刻から測る。空いている仮想ユーザーがいなければ待つので、
+ * サーバーが捌けない分は待ち時間としてレイテンシに現れる (coordinated omissionを避ける)。
+ */
+public final class LoadDriver {
+  /** openモードで、終了時刻の後に残ったリクエストを待つ時間 */
+  private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+  private final LoadTestOptions options;
+  private final List<VirtualUser> users;
+  private final Endpoint[] endpoints;
+  private final int[] cumulativeWeights;
+
+  public LoadDriver(LoadTestOptions options, List<VirtualUser> users) {
+    this.options = options;
+    this.users = users;
+
+    var entries = options.mix().entrySet().stream().filter(e -> e.getValue() > 0).toList();
+    this.endpoints = entries.stream().map(Map.Entry::getKey).toArray(Endpoint[]::new);
+    this.cumulativeWeights = new int[entries.size()];
+    int total = 0;
+    for (int i = 0; i < entries.size(); i++) {
+      total += entries.get(i).getValue();
+      cumulativeWeights[i] = total;
+    }
+  }
+
+  /** {@code duration} の間負荷をかける。終わるまで戻らない。 */
+  public void run(Duration duration) throws InterruptedException {
+    switch (options.model()) {
+      case CLOSED -> runClosed(duration);
+      case OPEN, RAMP -> runOpen(duration, options.rate());
+    }
+  }
+
+  private void runClosed(Duration duration) throws InterruptedException {
+    long deadline = System.nanoTime() + duration.toNanos();
+    long thinkNanos = options.thinkTime().toNanos();
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (var user : users) {
+        executor.execute(
+            () -> {
+              while (System.nanoTime() < deadline) {
+                user.perform(nextEndpoint(), System.nanoTime());
+                if (thinkNanos > 0) {
+                  LockSupport.parkNanos(thinkNanos);
+                }
+              }
+            });
+      }
+    }
+  }
+
+  /** 毎秒 {@code rate} 回のopenモードで {@code duration} の間負荷をかける */
+  public void runOpen(Duration duration, double rate) throws InterruptedException {
+    BlockingQueue<VirtualUser> idle = new ArrayBlockingQueue<>(users.size(), false, users);
+    long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    long start = System.nanoTime();
+    long deadline = start + duration.toNanos();
+
+    var executor = Executors.newVirtualThreadPerTaskExecutor();
+    try {
+      for (long intended = start; intended < deadline; intended += interval) {
+        long wait = intended - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        long scheduledAt = intended;
+        executor.execute(
+            () -> {
+              try {
+                var user = idle.take();
+                try {
+                  user.perform(nextEndpoint(), scheduledAt);
+                } finally {
+                  idle.add(user);
+                }
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            });
+      }
+    } finally {
+      executor.shutdown();
+      if (!executor.awaitTermination(DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  private Endpoint nextEndpoint() {
+    int r = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (r < cumulativeWeights[i]) {
+        return endpoints[i];
+      }
+    }
+    throw new IllegalStateException("unreachable");
+  }
+}
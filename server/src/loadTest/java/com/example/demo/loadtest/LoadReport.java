@@ -0,0 +1,190 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.HdrHistogram.Histogram;
+
+/**
+ * 負荷試験の結果。設定と一緒にJSONで書き出すので、別の実行のファイルと突き合わせられる。
+ *
+ * @param elapsed 計測した時間。openモードでは残ったリクエストを待った分も含む
+ * @param queries パスごとのSQLの実行回数
+ * @param ramp rampモードの各段の結果。それ以外では空
+ */
+public record LoadReport(
+    LoadTestOptions options,
+    OffsetDateTime startedAt,
+    Duration elapsed,
+    Map<Endpoint, EndpointStats> stats,
+    Map<String, Long> queries,
+    DatabaseStats database,
+    List<RampStep> ramp) {
+
+  /** {@code options.reportDir()} にJSONを書き、そのパスを返す */
+  public Path write() throws IOException {
+    var json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    var timestamp = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(startedAt);
+    var file =
+        options.reportDir().resolve("loadtest-%s-%s.json".formatted(options.label(), timestamp));
+    Files.createDirectories(options.reportDir());
+    json.writeValue(file.toFile(), toMap());
+    return file;
+  }
+
+  public void print(PrintStream out) {
+    out.printf(
+        "%n%-16s %8s %7s %9s %9s %9s %9s %9s %9s %9s%n",
+        "endpoint",
+        "requests",
+        "errors",
+        "req/s",
+        "p50 ms",
+        "p90 ms",
+        "p99 ms",
+        "p99.9 ms",
+        "max ms",
+        "queries/r");
+    stats.forEach(
+        (endpoint, s) -> {
+          var h = s.latency();
+          out.printf(
+              "%-16s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+              endpoint.label(),
+              h.getTotalCount(),
+              s.errors(),
+              perSecond(h.getTotalCount()),
+              millis(h.getValueAtPercentile(50)),
+              millis(h.getValueAtPercentile(90)),
+              millis(h.getValueAtPercentile(99)),
+              millis(h.getValueAtPercentile(99.9)),
+              millis(h.getMaxValue()),
+              perRequest(queries(endpoint), h.getTotalCount()));
+        });
+    out.printf(
+        "%nDB: %.1f xact/s, %.1f background queries/s%n",
+        perSecond(database.xactCommit() + database.xactRollback()),
+        perSecond(queries.getOrDefault(QueryCounter.BACKGROUND, 0L)));
+    if (!ramp.isEmpty()) {
+      out.printf("Max sustainable rate: %.1f req/s%n", maxSustainableRate());
+    }
+  }
+
+  /** SLOを満たした最後の段のrate。1段目から満たさなければ0 */
+  public double maxSustainableRate() {
+    return ramp.stream().filter(RampStep::withinSlo).mapToDouble(RampStep::rate).max().orElse(0);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private Map<String, Object> toMap() {
+    var run = new LinkedHashMap<String, Object>();
+    run.put("startedAt", startedAt.withOffsetSameInstant(ZoneOffset.UTC).toString());
+    run.put("label", options.label());
+    run.put("model", options.model().name().toLowerCase(Locale.ROOT));
+    run.put("concurrency", options.concurrency());
+    switch (options.model()) {
+      case CLOSED -> run.put("thinkTimeMs", options.thinkTime().toMillis());
+      case OPEN -> run.put("rate", options.rate());
+      case RAMP -> {
+        run.put("rate", options.rate());
+        run.put("rateStep", options.rateStep());
+        run.put("sloP99Ms", options.sloP99().toMillis());
+        run.put("sloErrorRate", options.sloErrorRate());
+      }
+    }
+    run.put("warmupSeconds", options.warmup().toSeconds());
+    run.put("durationSeconds", options.duration().toSeconds());
+    run.put("elapsedSeconds", seconds());
+    var mix = new LinkedHashMap<String, Integer>();
+    options.mix().forEach((endpoint, weight) -> mix.put(endpoint.label(), weight));
+    run.put("mix", mix);
+    run.put("serverArgs", options.serverArgs());
+
+    var endpoints = new LinkedHashMap<String, Object>();
+    stats.forEach(
+        (endpoint, s) -> {
+          var h = s.latency();
+          long count = h.getTotalCount();
+          long endpointQueries = queries(endpoint);
+          var e = new LinkedHashMap<String, Object>();
+          e.put("requests", count);
+          e.put("errors", s.errors());
+          e.put("statuses", s.statuses());
+          e.put("throughput", perSecond(count));
+          e.put("latencyMs", latency(h));
+          e.put("dbQueries", endpointQueries);
+          e.put("dbQueriesPerRequest", perRequest(endpointQueries, count));
+          e.put("dbQps", perSecond(endpointQueries));
+          endpoints.put(endpoint.label(), e);
+        });
+
+    var db = new LinkedHashMap<String, Object>();
+    long background = queries.getOrDefault(QueryCounter.BACKGROUND, 0L);
+    db.put("backgroundQueries", background);
+    db.put("backgroundQps", perSecond(background));
+    db.put("totalQps", perSecond(queries.values().stream().mapToLong(Long::longValue).sum()));
+    db.put("xactPerSecond", perSecond(database.xactCommit() + database.xactRollback()));
+    db.put("rollbacks", database.xactRollback());
+    db.put("tuplesReturnedPerSecond", perSecond(database.tupReturned()));
+    db.put("tuplesFetchedPerSecond", perSecond(database.tupFetched()));
+    db.put("tuplesInserted", database.tupInserted());
+    db.put("tuplesUpdated", database.tupUpdated());
+    db.put("tuplesDeleted", database.tupDeleted());
+
+    var root = new LinkedHashMap<String, Object>();
+    root.put("run", run);
+    if (!ramp.isEmpty()) {
+      var r = new LinkedHashMap<String, Object>();
+      r.put("maxSustainableRate", maxSustainableRate());
+      r.put("steps", ramp);
+      root.put("ramp", r);
+    }
+    root.put("endpoints", endpoints);
+    root.put("database", db);
+    return root;
+  }
+
+  private static Map<String, Double> latency(Histogram h) {
+    var result = new LinkedHashMap<String, Double>();
+    result.put("p50", millis(h.getValueAtPercentile(50)));
+    result.put("p90", millis(h.getValueAtPercentile(90)));
+    result.put("p99", millis(h.getValueAtPercentile(99)));
+    result.put("p99.9", millis(h.getValueAtPercentile(99.9)));
+    result.put("max", millis(h.getMaxValue()));
+    result.put("mean", h.getMean() / 1000.0);
+    return result;
+  }
+
+  private long queries(Endpoint endpoint) {
+    return queries.getOrDefault(endpoint.path(), 0L);
+  }
+
+  private double seconds() {
+    return elapsed.toNanos() / 1e9;
+  }
+
+  private double perSecond(long count) {
+    return count / seconds();
+  }
+
+  private static double perRequest(long queries, long requests) {
+    return requests == 0 ? 0 : (double) queries / requests;
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+}
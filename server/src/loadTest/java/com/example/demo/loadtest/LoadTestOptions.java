@@ -0,0 +1,127 @@
+package com.example.demo.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * 負荷試験の設定。{@code --key=value} 形式で受け取り、知らないものはServerの引数として渡す。
+ *
+ * @param model closedは {@code concurrency} 人が応答を待ってから次を投げる。openは応答に関係なく毎秒 {@code rate} 回投げる。
+ *     rampはopenの {@code rate} を {@code rateStep} ずつ上げ、SLOを満たす最大のrateを探す
+ * @param concurrency 仮想ユーザー数。open・rampでは同時に処理中にできる数の上限になる
+ * @param rate open・rampで1秒あたりに投げる回数。rampでは最初の段
+ * @param sloP99 rampで、全エンドポイントをまとめたp99がこれを超えたら打ち切る
+ * @param sloErrorRate rampで、エラーの割合がこれを超えたら打ち切る
+ * @param duration 計測時間。rampでは1段あたり
+ * @param thinkTime closedで次のリクエストまで待つ時間
+ * @param mix エンドポイントごとの重み
+ * @param label レポートのファイル名に入れる名前。比較する実行を区別するため
+ * @param container falseならTestcontainersを使わず、設定されたDBにつなぐ
+ */
+public record LoadTestOptions(
+    Model model,
+    int concurrency,
+    double rate,
+    double rateStep,
+    double maxRate,
+    Duration sloP99,
+    double sloErrorRate,
+    Duration warmup,
+    Duration duration,
+    Duration thinkTime,
+    Map<Endpoint, Integer> mix,
+    String label,
+    boolean container,
+    Path reportDir,
+    List<String> serverArgs) {
+
+  public enum Model {
+    CLOSED,
+    OPEN,
+    RAMP
+  }
+
+  public static LoadTestOptions parse(String[] args) {
+    var model = Model.CLOSED;
+    int concurrency = 16;
+    double rate = 100;
+    double rateStep = 0;
+    double maxRate = 10_000;
+    var sloP99 = Duration.ofMillis(500);
+    double sloErrorRate = 0.01;
+    var warmup = Duration.ofSeconds(10);
+    var duration = Duration.ofSeconds(30);
+    var thinkTime = Duration.ZERO;
+    var mix = parseMix("login:6,logout:2,change-password:1,signup:1");
+    boolean container = true;
+    @Nullable String label = null;
+    var reportDir = Path.of("build/reports/loadtest");
+    var serverArgs = new ArrayList<String>();
+
+    for (var arg : args) {
+      int eq = arg.indexOf('=');
+      var key = eq < 0 ? arg : arg.substring(0, eq);
+      var value = eq < 0 ? "" : arg.substring(eq + 1);
+      switch (key) {
+        case "--model" -> model = Model.valueOf(value.toUpperCase(Locale.ROOT));
+        case "--concurrency" -> concurrency = Integer.parseInt(value);
+        case "--rate" -> rate = Double.parseDouble(value);
+        case "--rate-step" -> rateStep = Double.parseDouble(value);
+        case "--max-rate" -> maxRate = Double.parseDouble(value);
+        case "--slo-p99" -> sloP99 = DurationStyle.detectAndParse(value);
+        case "--slo-error-rate" -> sloErrorRate = Double.parseDouble(value);
+        case "--warmup" -> warmup = DurationStyle.detectAndParse(value);
+        case "--duration" -> duration = DurationStyle.detectAndParse(value);
+        case "--think-time" -> thinkTime = DurationStyle.detectAndParse(value);
+        case "--mix" -> mix = parseMix(value);
+        case "--no-container" -> container = false;
+        case "--label" -> label = value;
+        case "--report-dir" -> reportDir = Path.of(value);
+        default -> serverArgs.add(arg);
+      }
+    }
+    if (concurrency <= 0 || rate <= 0) {
+      throw new IllegalArgumentException("concurrency and rate must be positive");
+    }
+    return new LoadTestOptions(
+        model,
+        concurrency,
+        rate,
+        rateStep > 0 ? rateStep : rate,
+        maxRate,
+        sloP99,
+        sloErrorRate,
+        warmup,
+        duration,
+        thinkTime,
+        mix,
+        label != null ? label : model.name().toLowerCase(Locale.ROOT),
+        container,
+        reportDir,
+        List.copyOf(serverArgs));
+  }
+
+  /** {@code login:6,logout:2} の形式 */
+  @SuppressWarnings("StringSplitter")
+  private static Map<Endpoint, Integer> parseMix(String value) {
+    var mix = new EnumMap<Endpoint, Integer>(Endpoint.class);
+    for (var entry : value.split(",")) {
+      var pair = entry.split(":");
+      if (pair.length != 2) {
+        throw new IllegalArgumentException("Invalid mix: " + value);
+      }
+      mix.put(Endpoint.of(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+    }
+    if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+      throw new IllegalArgumentException("Invalid mix: " + value);
+    }
+    return mix;
+  }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+import org.jspecify.annotations.Nullable;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * SQLの実行回数をリクエストのパスごとに数える。
+ *
+ * <p>リクエストを処理しているスレッドで実行されたものをそのリクエストに数え、それ以外 (書き込みの遅延やLISTENなど) は {@link #BACKGROUND}
+ * に数える。バッチは1回と数える。
+ */
+public class QueryCounter {
+  public static final String BACKGROUND = "background";
+
+  private final ThreadLocal<@Nullable String> current = new ThreadLocal<>();
+  private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+  /** パスごとの実行回数を返してリセットする */
+  public Map<String, Long> snapshotAndReset() {
+    var result = new TreeMap<String, Long>();
+    counts.forEach((path, count) -> result.put(path, count.sumThenReset()));
+    return result;
+  }
+
+  private void increment() {
+    var path = current.get();
+    counts.computeIfAbsent(path != null ? path : BACKGROUND, k -> new LongAdder()).increment();
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // DataSource
+
+  public DataSource wrap(DataSource target) {
+    return new DelegatingDataSource(target) {
+      @Override
+      public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, obtainTargetDataSource().getConnection());
+      }
+
+      @Override
+      public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, obtainTargetDataSource().getConnection(username, password));
+      }
+    };
+  }
+
+  private <T> T proxy(Class<T> type, T target) {
+    InvocationHandler handler =
+        (proxy, method, args) -> {
+          Object result;
+          try {
+            result = method.invoke(target, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+          if (method.getName().startsWith("execute")) {
+            increment();
+          }
+          return switch (result) {
+            case CallableStatement s -> proxy(CallableStatement.class, s);
+            case PreparedStatement s -> proxy(PreparedStatement.class, s);
+            case Statement s -> proxy(Statement.class, s);
+            case null, default -> result;
+          };
+        };
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Filter
+
+  /** リクエストを処理している間、そのパスを数え先にする */
+  public OncePerRequestFilter filter() {
+    return new OncePerRequestFilter() {
+      @Override
+      protected void doFilterInternal(
+          HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+          throws ServletException, IOException {
+        current.set(request.getRequestURI());
+        try {
+          chain.doFilter(request, response);
+        } finally {
+          current.remove();
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.loadtest;
+
+import javax.sql.DataSource;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/** 全ての {@link DataSource} を {@link QueryCounter} で包む */
+@TestConfiguration(proxyBeanMethods = false)
+public class QueryCountingConfiguration {
+
+  @Bean
+  @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+  static QueryCounter queryCounter() {
+    return new QueryCounter();
+  }
+
+  @Bean
+  static BeanPostProcessor queryCountingDataSourcePostProcessor(QueryCounter counter) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof DataSource dataSource ? counter.wrap(dataSource) : bean;
+      }
+    };
+  }
+
+  /** セッションの読み書きも数えるため、SessionRepositoryFilterより前に置く */
+  @Bean
+  FilterRegistrationBean<OncePerRequestFilter> queryCountingFilter(QueryCounter counter) {
+    var registration = new FilterRegistrationBean<>(counter.filter());
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.loadtest;
+
+import java.time.Duration;
+import java.util.Collection;
+import org.HdrHistogram.Histogram;
+
+/**
+ * rampモードの1段の結果。全エンドポイントをまとめて判定する。
+ *
+ * @param rate 予定した1秒あたりのリクエスト数
+ * @param throughput 実際に完了した1秒あたりのリクエスト数
+ */
+public record RampStep(
+    double rate, double throughput, double p99Ms, double errorRate, boolean withinSlo) {
+
+  public static RampStep of(
+      double rate, Duration elapsed, Collection<EndpointStats> stats, LoadTestOptions options) {
+    var all = new Histogram(3);
+    long errors = 0;
+    for (var s : stats) {
+      all.add(s.latency());
+      errors += s.errors();
+    }
+    long count = all.getTotalCount();
+    double p99Ms = all.getValueAtPercentile(99) / 1000.0;
+    double errorRate = count == 0 ? 0 : (double) errors / count;
+    boolean withinSlo =
+        count > 0
+            && p99Ms <= options.sloP99().toNanos() / 1e6
+            && errorRate <= options.sloErrorRate();
+    return new RampStep(rate, count / (elapsed.toNanos() / 1e9), p99Ms, errorRate, withinSlo);
+  }
+}
@@ -0,0 +1,191 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 自分のアカウントを1つ持ち、ブラウザのようにCookie (トークンモードならアクセストークン) を引き回す利用者。
+ *
+ * <p>1人の仮想ユーザーを同時に複数のスレッドから使ってはいけない。
+ */
+public final class VirtualUser {
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+  private static final AtomicLong SEQUENCE = new AtomicLong();
+
+  private final HttpClient http;
+  private final URI baseUri;
+  private final ObjectMapper json;
+  private final Map<Endpoint, EndpointStats> stats;
+  private final String runId;
+
+  private final String username;
+  private String password;
+  private int passwordVersion = 0;
+
+  private final Map<String, String> cookies = new HashMap<>();
+  private @Nullable String accessToken;
+  private boolean loggedIn = false;
+
+  /** openモードで待たされた時間を最初のリクエストに含めるための開始時刻 */
+  private long pendingStart = 0;
+
+  public VirtualUser(
+      HttpClient http,
+      URI baseUri,
+      ObjectMapper json,
+      Map<Endpoint, EndpointStats> stats,
+      String runId) {
+    this.http = http;
+    this.baseUri = baseUri;
+    this.json = json;
+    this.stats = stats;
+    this.runId = runId;
+    this.username = nextUsername();
+    this.password = "password-0";
+  }
+
+  /** 自分のアカウントを作る。計測はwarmupの後にリセットされる前提。 */
+  public void register() {
+    if (send(Endpoint.SIGNUP, signupRequest(username, password)) != 200) {
+      throw new IllegalStateException("Failed to sign up " + username);
+    }
+  }
+
+  /**
+   * {@code endpoint} を1回叩く。ログインが必要なものは先にログインする。
+   *
+   * @param startNanos 最初のリクエストのレイテンシの起点
+   */
+  public void perform(Endpoint endpoint, long startNanos) {
+    pendingStart = startNanos;
+    switch (endpoint) {
+      case SIGNUP -> send(Endpoint.SIGNUP, signupRequest(nextUsername(), "password-0"));
+      case LOGIN -> login();
+      case LOGOUT -> {
+        if (ensureLoggedIn() && send(Endpoint.LOGOUT, null) / 100 == 2) {
+          forgetSession();
+        }
+      }
+      case CHANGE_PASSWORD -> {
+        if (ensureLoggedIn()) {
+          var newPassword = "password-" + (passwordVersion + 1);
+          var body = Map.of("oldPassword", password, "newPassword", newPassword);
+          if (send(Endpoint.CHANGE_PASSWORD, body) / 100 == 2) {
+            password = newPassword;
+            passwordVersion++;
+            // 他のセッションと一緒に無効になっている
+            forgetSession();
+          }
+        }
+      }
+    }
+  }
+
+  // ----------------------------------------------------------------------------------------------
+  // Internal
+
+  private boolean ensureLoggedIn() {
+    return loggedIn || login();
+  }
+
+  private boolean login() {
+    forgetSession();
+    loggedIn = send(Endpoint.LOGIN, Map.of("username", username, "password", password)) == 200;
+    return loggedIn;
+  }
+
+  private void forgetSession() {
+    cookies.clear();
+    accessToken = null;
+    loggedIn = false;
+  }
+
+  private Map<String, String> signupRequest(String username, String password) {
+    return Map.of("username", username, "password", password, "email", username + "@example.com");
+  }
+
+  private String nextUsername() {
+    return "lt-" + runId + "-" + SEQUENCE.incrementAndGet();
+  }
+
+  /** @return ステータスコード。失敗したら {@link EndpointStats#TRANSPORT_ERROR} */
+  private int send(Endpoint endpoint, @Nullable Object body) {
+    long start = pendingStart != 0 ? pendingStart : System.nanoTime();
+    pendingStart = 0;
+
+    int status;
+    try {
+      var request =
+          HttpRequest.newBuilder(baseUri.resolve(endpoint.path()))
+              .timeout(TIMEOUT)
+              .header("Content-Type", "application/json")
+              .POST(
+                  body == null
+                      ? HttpRequest.BodyPublishers.noBody()
+                      : HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(body)));
+      if (!cookies.isEmpty()) {
+        request.header(
+            "Cookie",
+            cookies.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining("; ")));
+      }
+      if (accessToken != null) {
+        request.header("Authorization", "Bearer " + accessToken);
+      }
+      var response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+      status = response.statusCode();
+      storeCookies(response);
+      if (endpoint == Endpoint.LOGIN && status == 200) {
+        storeAccessToken(response.body());
+      }
+    } catch (IOException e) {
+      status = EndpointStats.TRANSPORT_ERROR;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return EndpointStats.TRANSPORT_ERROR;
+    }
+
+    Objects.requireNonNull(stats.get(endpoint)).record(System.nanoTime() - start, status);
+    return status;
+  }
+
+  private void storeCookies(HttpResponse<?> response) {
+    for (var header : response.headers().allValues("Set-Cookie")) {
+      var pair = header.split(";", 2)[0];
+      int eq = pair.indexOf('=');
+      if (eq <= 0) {
+        continue;
+      }
+      var name = pair.substring(0, eq).trim();
+      var value = pair.substring(eq + 1).trim();
+      if (value.isEmpty() || header.contains("Max-Age=0")) {
+        cookies.remove(name);
+      } else {
+        cookies.put(name, value);
+      }
+    }
+  }
+
+  /** トークンモードならレスポンスにアクセストークンがある */
+  private void storeAccessToken(String body) throws IOException {
+    if (body.isBlank()) {
+      return;
+    }
+    var token = json.readTree(body).path("accessToken");
+    if (token.isTextual()) {
+      accessToken = token.asText();
+    }
+  }
+}
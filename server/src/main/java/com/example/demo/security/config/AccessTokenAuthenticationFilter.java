@@ -0,0 +1,49 @@
+package com.example.demo.security.config;
+
+import com.example.demo.auth.infra.AccessTokenService;
+import com.example.demo.auth.infra.AccessTokenService.AccessToken;
+import com.example.demo.auth.infra.AccessTokenService.VerifyResult;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/** {@code Authorization: Bearer} のアクセストークンを検証して認証状態にする。DBにはアクセスしない */
+@Slf4j
+@RequiredArgsConstructor
+public class AccessTokenAuthenticationFilter extends OncePerRequestFilter {
+  private static final String BEARER_PREFIX = "Bearer ";
+
+  private final AccessTokenService accessTokenService;
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    var header = request.getHeader(HttpHeaders.AUTHORIZATION);
+    if (header != null && header.startsWith(BEARER_PREFIX)) {
+      switch (accessTokenService.verify(header.substring(BEARER_PREFIX.length()))) {
+        case VerifyResult.Valid(AccessToken token) -> {
+          var authorities = token.authorities().stream().map(SimpleGrantedAuthority::new).toList();
+          var authentication =
+              new UsernamePasswordAuthenticationToken(token.username(), null, authorities);
+          authentication.setDetails(token);
+          var context = SecurityContextHolder.createEmptyContext();
+          context.setAuthentication(authentication);
+          SecurityContextHolder.setContext(context);
+        }
+        case VerifyResult.Invalid(String reason) -> log.info("Invalid access token: {}", reason);
+        case VerifyResult.Revoked() -> log.info("Revoked access token");
+      }
+    }
+    filterChain.doFilter(request, response);
+  }
+}
@@ -1,14 +1,16 @@
 package com.example.demo.security.config;
 
+import com.example.demo.auth.infra.AccessTokenService;
+import com.example.demo.auth.infra.AuthMode;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -24,17 +26,34 @@ public class SecurityConfig {
   @Value("${cors.allowed-origins}")
   private String[] allowedOrigins;
 
+  @Value("${auth.mode:session}")
+  private AuthMode authMode = AuthMode.SESSION;
+
   @Bean
-  public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+  public SecurityFilterChain securityFilterChain(
+      HttpSecurity http, AccessTokenService accessTokenService) throws Exception {
     http.cors(cors -> cors.configurationSource(corsConfigurationSource()))
-        .csrf(csrf -> csrf.disable())
-        .sessionManagement(session -> session.invalidSessionUrl("/api/auth/login"))
-        .authorizeHttpRequests(
-            auth ->
-                auth.requestMatchers("/api/auth/login", "/api/auth/signup", "/doc.yaml", "/doc/**")
-                    .permitAll()
-                    .anyRequest()
-                    .authenticated());
+        .csrf(csrf -> csrf.disable());
+
+    switch (authMode) {
+      case SESSION ->
+          http.sessionManagement(session -> session.invalidSessionUrl("/api/auth/login"));
+      case TOKEN ->
+          http.sessionManagement(
+                  session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+              .addFilterBefore(
+                  new AccessTokenAuthenticationFilter(accessTokenService),
+                  UsernamePasswordAuthenticationFilter.class);
+    }
+
+    http.authorizeHttpRequests(
+        auth ->
+            auth.requestMatchers("/api/auth/login", "/api/auth/signup", "/doc.yaml", "/doc/**")
+                .permitAll()
+                .requestMatchers("/api/admin/**")
+                .hasRole("ADMIN")
+                .anyRequest()
+                .authenticated());
 
     return http.build();
   }
@@ -53,9 +72,4 @@ public class SecurityConfig {
     source.registerCorsConfiguration("/**", configuration);
     return source;
   }
-
-  @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
-  }
 }
@@ -0,0 +1,280 @@
+package com.example.demo.security.controller;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+import com.example.demo.auth.infra.SessionManager;
+import com.example.demo.user.entity.Role;
+import com.example.demo.user.entity.User;
+import com.example.demo.user.repository.UserRepository;
+import com.example.demo.user.service.UserExportService;
+import com.example.demo.user.service.UserFileFormat;
+import com.example.demo.user.service.UserImportReader.InvalidInputException;
+import com.example.demo.user.service.UserImportService;
+import com.example.demo.user.service.UserImportService.RowError;
+import com.example.demo.user.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Tag(name = "Admin", description = "管理者用のAPI")
+public class AdminController {
+  private static final String TEXT_CSV_VALUE = "text/csv";
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+
+  private final SessionManager sessionManager;
+  private final UserService userService;
+  private final UserImportService userImportService;
+  private final UserExportService userExportService;
+
+  // --------------------------------------------------------------------------------------------
+  // セッションの一括削除
+
+  @Schema(description = "セッション削除レスポンス")
+  public static record RevokeSessionsResponse(
+      @Schema(description = "削除したセッション数", example = "3") int revoked) {}
+
+  @Operation(summary = "全セッション削除", description = "指定したユーザーを全ての端末からログアウトさせます")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "削除成功",
+            content = @Content(schema = @Schema(implementation = RevokeSessionsResponse.class))),
+        @ApiResponse(responseCode = "403", description = "管理者ではない")
+      })
+  @DeleteMapping("/users/{username}/sessions")
+  public ResponseEntity<RevokeSessionsResponse> revokeSessions(@PathVariable String username) {
+    int revoked = sessionManager.invalidateAllSessions(username, null);
+    log.info(
+        "Sessions revoked by admin",
+        kv("username", username),
+        kv("count", revoked),
+        kv("admin", sessionManager.getUsername()));
+    return ResponseEntity.ok(new RevokeSessionsResponse(revoked));
+  }
+
+  // --------------------------------------------------------------------------------------------
+  // ユーザーの一覧・検索
+
+  /** 1ページの上限 */
+  private static final int MAX_PAGE_SIZE = 1000;
+
+  @Schema(description = "ユーザー")
+  public static record UserResponse(
+      @Schema(description = "ID") UUID id,
+      @Schema(description = "ユーザー名", example = "user1") String username,
+      @Schema(description = "メールアドレス", example = "user1@example.com") String email,
+      @Schema(description = "有効か") boolean enabled,
+      @Schema(description = "作成日時") OffsetDateTime createdAt,
+      @Schema(description = "ロール", example = "[\"ROLE_USER\"]") List<String> roles) {
+
+    static UserResponse of(User user) {
+      return new UserResponse(
+          user.getId(),
+          user.getUsername(),
+          user.getEmail(),
+          user.isEnabled(),
+          user.getCreatedAt(),
+          user.getRoles().roles().stream().map(Role::name).sorted().toList());
+    }
+  }
+
+  @Schema(description = "ユーザー一覧レスポンス")
+  public static record ListUsersResponse(
+      @Schema(description = "ユーザー (並び順はlistUsersの説明を参照)") List<UserResponse> users,
+      @Schema(description = "次のページのafter。最後のページならnull") @Nullable String next) {}
+
+  @Operation(
+      summary = "ユーザーの一覧・検索",
+      description =
+          "ユーザーをユーザー名の順に返します。qを指定すると、ユーザー名かメールアドレスがqで始まるユーザーだけを返します。"
+              + "その場合、ユーザー名が一致するユーザーをユーザー名の順に返したあと、メールアドレスだけが一致するユーザーをメールアドレスの順に返します。"
+              + "次のページはafterにnextを渡して取得します (qは同じ値を渡してください)")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "取得成功",
+            content = @Content(schema = @Schema(implementation = ListUsersResponse.class))),
+        @ApiResponse(responseCode = "400", description = "afterが正しくないか、qと合っていない"),
+        @ApiResponse(responseCode = "403", description = "管理者ではない")
+      })
+  @GetMapping("/users")
+  public ResponseEntity<ListUsersResponse> listUsers(
+      @Parameter(description = "ユーザー名かメールアドレスの前方一致") @RequestParam(required = false)
+          @Nullable String q,
+      @Parameter(description = "前のページのnext") @RequestParam(required = false) @Nullable String after,
+      @Parameter(description = "1ページの件数 (最大1000)") @RequestParam(defaultValue = "50") int limit) {
+    UserRepository.Page page;
+    try {
+      var cursor = after != null ? UserRepository.Cursor.decode(after) : null;
+      page = userService.searchUsers(q, cursor, Math.clamp(limit, 1, MAX_PAGE_SIZE));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+    var next = page.next() != null ? page.next().encode() : null;
+    return ResponseEntity.ok(
+        new ListUsersResponse(page.users().stream().map(UserResponse::of).toList(), next));
+  }
+
+  // --------------------------------------------------------------------------------------------
+  // ユーザーの一括インポート
+
+  /** レスポンスに入れるエラーの上限。全件はCLI (import-users) のレポートで見る */
+  private static final int MAX_REPORTED_ERRORS = 1000;
+
+  @Schema(description = "一括インポートレスポンス")
+  public static record ImportUsersResponse(
+      @Schema(description = "チェックポイントから再開した場合、その行番号", example = "0") long resumedFrom,
+      @Schema(description = "作成したユーザー数", example = "998") long imported,
+      @Schema(description = "取り込めなかった行数", example = "2") long failed,
+      @Schema(description = "最後にコミットした行番号", example = "1001") long lastLine,
+      @Schema(description = "取り込めなかった行 (先頭から最大1000件)") List<RowError> errors) {}
+
+  @Operation(
+      summary = "ユーザーの一括インポート",
+      description =
+          "CSV (text/csv、ヘッダー username,password,email[,role]) またはJSONL (application/x-ndjson)"
+              + " からユーザーを作成します。jobを指定すると、同じjobでの再実行は前回コミットした行の次から続けます")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "取り込み完了 (一部の行が失敗していても200)",
+            content = @Content(schema = @Schema(implementation = ImportUsersResponse.class))),
+        @ApiResponse(
+            responseCode = "400",
+            description = "CSVのヘッダーが正しくない。1行も取り込まない",
+            content = @Content(schema = @Schema(implementation = String.class))),
+        @ApiResponse(responseCode = "403", description = "管理者ではない"),
+        @ApiResponse(
+            responseCode = "409",
+            description = "他のインポートが実行中。終わってから再試行すること",
+            content = @Content(schema = @Schema(implementation = String.class)))
+      })
+  @PostMapping(
+      value = "/users/import",
+      consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public ResponseEntity<ImportUsersResponse> importUsers(
+      @RequestParam(required = false) @Nullable String job, HttpServletRequest request)
+      throws IOException {
+    var contentType = MediaType.parseMediaType(request.getContentType());
+    var format = TEXT_CSV.isCompatibleWith(contentType) ? UserFileFormat.CSV : UserFileFormat.JSONL;
+    var charset = contentType.getCharset() != null ? contentType.getCharset() : UTF_8;
+
+    var errors = new ArrayList<RowError>();
+    var result =
+        userImportService.importUsers(
+            new InputStreamReader(request.getInputStream(), charset),
+            format,
+            job,
+            error -> {
+              if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+              }
+            });
+    log.info(
+        "Users imported by admin",
+        kv("job", job),
+        kv("imported", result.imported()),
+        kv("failed", result.failed()),
+        kv("admin", sessionManager.getUsername()));
+    return ResponseEntity.ok(
+        new ImportUsersResponse(
+            result.resumedFrom(), result.imported(), result.failed(), result.lastLine(), errors));
+  }
+
+  // --------------------------------------------------------------------------------------------
+  // ユーザーのエクスポート
+
+  @Operation(
+      summary = "ユーザーのエクスポート",
+      description =
+          "ユーザーとロールをidの順にCSVまたはJSONLで返します。パスワードのハッシュは含みません。" + "afterに前回の最後のidを渡すと、その続きから返します")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "エクスポート成功"),
+        @ApiResponse(responseCode = "400", description = "formatが正しくない"),
+        @ApiResponse(responseCode = "403", description = "管理者ではない")
+      })
+  @GetMapping("/users/export")
+  public ResponseEntity<StreamingResponseBody> exportUsers(
+      @Parameter(description = "csv または jsonl") @RequestParam(defaultValue = "jsonl") String format,
+      @Parameter(description = "このidより後のユーザーを返す") @RequestParam(required = false)
+          @Nullable UUID after,
+      @Parameter(description = "最大件数。省略すると全件") @RequestParam(defaultValue = "0") long limit) {
+    UserFileFormat outputFormat;
+    try {
+      outputFormat = UserFileFormat.of(format);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().build();
+    }
+    log.info(
+        "Users exported by admin",
+        kv("format", outputFormat),
+        kv("after", after),
+        kv("admin", sessionManager.getUsername()));
+    // 全件をメモリに載せず、読んだ端からレスポンスに書く
+    StreamingResponseBody body =
+        out -> {
+          var writer = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+          userExportService.export(writer, outputFormat, after, limit);
+        };
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(outputFormat.contentType() + ";charset=UTF-8"))
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"users." + outputFormat.name().toLowerCase(Locale.ROOT) + "\"")
+        .body(body);
+  }
+
+  // --------------------------------------------------------------------------------------------
+  // エラーハンドリング
+
+  @ExceptionHandler(InvalidInputException.class)
+  public ResponseEntity<?> handleInvalidInput(InvalidInputException e) {
+    log.info("Rejected user import: {}", e.getMessage());
+    return ResponseEntity.badRequest().body(e.getMessage());
+  }
+
+  @ExceptionHandler(UserImportService.BusyException.class)
+  public ResponseEntity<?> handleImportBusy(UserImportService.BusyException e) {
+    log.info("Rejected user import: {}", e.getMessage());
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+  }
+}
@@ -2,7 +2,11 @@ package com.example.demo.security.controller;
 
 import static net.logstash.logback.argument.StructuredArguments.kv;
 
+import com.example.demo.auth.infra.AccessTokenService;
+import com.example.demo.auth.infra.AuthMode;
+import com.example.demo.auth.infra.RevokedTokenChecker;
 import com.example.demo.auth.infra.SessionManager;
+import com.example.demo.crosscutting.HashingExecutor;
 import com.example.demo.user.service.UserService;
 import com.example.demo.user.service.UserService.AuthResult;
 import com.example.demo.user.service.UserService.CreateUserResult;
@@ -16,9 +20,14 @@ import jakarta.annotation.Nullable;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -32,6 +41,11 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
   private final UserService userService;
   private final SessionManager sessionManager;
+  private final AccessTokenService accessTokenService;
+  private final RevokedTokenChecker revokedTokenChecker;
+
+  @Value("${auth.mode:session}")
+  private AuthMode authMode = AuthMode.SESSION;
 
   // --------------------------------------------------------------------------------------------
   // サインアップ
@@ -43,7 +57,8 @@ public class AuthController {
       @NotNull(message = "Password is required")
           @Schema(description = "パスワード", example = "password123")
           String password,
-      @Nullable @Schema(description = "ロール", example = "USER") String role) {}
+      @Nullable @Schema(description = "メールアドレス", example = "user1@example.com") String email,
+      @Nullable @Schema(description = "使わない。ロールは常にROLE_USER", deprecated = true) String role) {}
 
   @Operation(summary = "サインアップ", description = "新しいユーザーを登録します")
   @ApiResponses(
@@ -54,15 +69,16 @@ public class AuthController {
             content = @Content(schema = @Schema(implementation = String.class))),
         @ApiResponse(
             responseCode = "400",
-            description = "ユーザー名が既に存在する",
-            content = @Content(schema = @Schema(implementation = String.class)))
+            description = "ユーザー名またはメールアドレスが既に使われている",
+            content = @Content(schema = @Schema(implementation = String.class))),
+        @ApiResponse(responseCode = "503", description = "混雑中。Retry-After秒後に再試行すること")
       })
   @PostMapping("/signup")
   public ResponseEntity<?> signup(@Valid @RequestBody SignupRequest request) {
 
     log.info("signup request", kv("username", request.username()));
 
-    var result = userService.createUser(request.username(), request.password(), request.role());
+    var result = userService.createUser(request.username(), request.password(), request.email());
 
     return switch (result) {
       case CreateUserResult.Success(var user) -> {
@@ -70,8 +86,11 @@ public class AuthController {
         yield ResponseEntity.ok().build();
       }
 
-      case CreateUserResult.AlreadyExists() -> {
-        yield ResponseEntity.badRequest().body("Username already exists");
+      case CreateUserResult.AlreadyExists(var conflict) -> {
+        yield switch (conflict) {
+          case USERNAME -> ResponseEntity.badRequest().body("Username already exists");
+          case EMAIL -> ResponseEntity.badRequest().body("Email already exists");
+        };
       }
 
       case CreateUserResult.InvalidInput(var e) -> {
@@ -91,17 +110,26 @@ public class AuthController {
           @Schema(description = "パスワード", example = "password123")
           String password) {}
 
-  @Operation(summary = "ログイン", description = "ユーザー名とパスワードでログインし、セッションを開始します")
+  @Schema(description = "ログインレスポンス (トークンモードのみ)")
+  public static record LoginResponse(
+      @Schema(description = "アクセストークン") String accessToken,
+      @Schema(description = "トークン種別", example = "Bearer") String tokenType,
+      @Schema(description = "有効期間 (秒)", example = "900") long expiresIn) {}
+
+  @Operation(
+      summary = "ログイン",
+      description = "ユーザー名とパスワードでログインし、セッションを開始します。" + "トークンモードではセッションの代わりにアクセストークンを返します")
   @ApiResponses(
       value = {
         @ApiResponse(
             responseCode = "200",
             description = "ログイン成功",
-            content = @Content(schema = @Schema(implementation = String.class))),
+            content = @Content(schema = @Schema(implementation = LoginResponse.class))),
         @ApiResponse(
             responseCode = "400",
             description = "無効なユーザー名またはパスワード",
-            content = @Content(schema = @Schema(implementation = String.class)))
+            content = @Content(schema = @Schema(implementation = String.class))),
+        @ApiResponse(responseCode = "503", description = "混雑中。Retry-After秒後に再試行すること")
       })
   @PostMapping("/login")
   public ResponseEntity<?> login(
@@ -115,8 +143,18 @@ public class AuthController {
 
     return switch (result) {
       case AuthResult.Success(var user) -> {
-        sessionManager.createSession(httpRequest, user);
-        yield ResponseEntity.ok().build();
+        yield switch (authMode) {
+          case SESSION -> {
+            sessionManager.createSession(httpRequest, user);
+            yield ResponseEntity.ok().build();
+          }
+          case TOKEN -> {
+            var issued = accessTokenService.issue(user);
+            var token = issued.token();
+            long expiresIn = token.expiresAt().getEpochSecond() - token.issuedAt().getEpochSecond();
+            yield ResponseEntity.ok(new LoginResponse(issued.value(), "Bearer", expiresIn));
+          }
+        };
       }
 
       case AuthResult.UserNotFound() -> {
@@ -132,10 +170,12 @@ public class AuthController {
   // --------------------------------------------------------------------------------------------
   // ログアウト
 
-  @Operation(summary = "ログアウト", description = "現在のセッションからログアウトします")
+  @Operation(summary = "ログアウト", description = "現在のセッションからログアウトします。トークンモードではトークンを失効させます")
   @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "ログアウト成功")})
   @PostMapping("/logout")
   public ResponseEntity<?> logout(HttpServletRequest request) {
+    AccessTokenService.currentToken()
+        .ifPresent(token -> revokedTokenChecker.revoke(token.jti(), "logout", null));
     sessionManager.invalidateSession(request);
     return ResponseEntity.ok().build();
   }
@@ -152,7 +192,9 @@ public class AuthController {
           @Schema(description = "新しいパスワード", example = "newPassword123") //
           String newPassword) {}
 
-  @Operation(summary = "パスワード変更", description = "パスワードを変更し、既存のセッションを無効にします")
+  @Operation(
+      summary = "パスワード変更",
+      description = "パスワードを変更し、既存のセッションを無効にします。トークンモードでは発行済みのトークンを全て失効させます")
   @ApiResponses(
       value = { //
         @ApiResponse(
@@ -162,7 +204,10 @@ public class AuthController {
         @ApiResponse(
             responseCode = "400", //
             description = "無効なパスワードまたはユーザーが見つかりません", //
-            content = @Content(schema = @Schema(implementation = String.class)))
+            content = @Content(schema = @Schema(implementation = String.class))),
+        @ApiResponse(
+            responseCode = "503", //
+            description = "混雑中。Retry-After秒後に再試行すること")
       })
   @PostMapping("/change-password")
   public ResponseEntity<?> changePassword(
@@ -175,8 +220,17 @@ public class AuthController {
 
     switch (result) {
       case AuthResult.Success(var user) -> {
-        userService.changePassword(user, request.newPassword());
-        sessionManager.invalidateAllSessionsForCurrentUser();
+        var changedAt = Instant.now();
+        if (userService.changePassword(user, request.newPassword()).isEmpty()) {
+          // 変更できなかったので、セッションもトークンもそのまま
+          return ResponseEntity.badRequest().body("Invalid password");
+        }
+        int revoked = sessionManager.invalidateOtherSessionsForCurrentUser(httpRequest);
+        log.info("Sessions revoked after password change", kv("count", revoked));
+        if (authMode == AuthMode.TOKEN) {
+          // 盗まれたトークンが残らないよう、これまでに発行した全てのトークン (このリクエストのものも) を失効させる
+          revokedTokenChecker.revokeIssuedBefore(user.getUsername(), changedAt);
+        }
         return ResponseEntity.ok().build();
       }
 
@@ -189,4 +243,18 @@ public class AuthController {
       }
     }
   }
+
+  // --------------------------------------------------------------------------------------------
+  // エラーハンドリング
+
+  @ExceptionHandler(HashingExecutor.SaturatedException.class)
+  public ResponseEntity<?> handleHashingSaturated(HashingExecutor.SaturatedException e) {
+    log.warn("Hashing executor saturated");
+    // Retry-Afterは秒単位。切り捨てると1秒未満が0 (すぐ再試行) になるので、切り上げて最低1秒にする
+    long retryAfterMillis = e.getRetryAfter().toMillis();
+    long retryAfterSeconds = Math.max(1, (retryAfterMillis + 999) / 1000);
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+        .body("Too many requests");
+  }
 }
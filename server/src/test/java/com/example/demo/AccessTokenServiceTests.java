@@ -0,0 +1,166 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.auth.infra.AccessTokenService;
+import com.example.demo.auth.infra.AccessTokenService.VerifyResult;
+import com.example.demo.auth.infra.AuthMode;
+import com.example.demo.auth.infra.RevokedTokenChecker;
+import com.example.demo.user.entity.RoleSet;
+import com.example.demo.user.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/** 署名・ヘッダー・有効期限・失効の判定。DBもSpringも使わない */
+class AccessTokenServiceTests {
+  private static final String SECRET = "0123456789abcdef0123456789abcdef";
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+  private final RevokedTokenChecker revokedTokenChecker = mock(RevokedTokenChecker.class);
+  private final AccessTokenService service = newService(Duration.ofMinutes(15));
+  private final User user =
+      User.unsafeOf(
+          UUID.randomUUID(),
+          "alice",
+          User.PasswordHash.unsafeOf("{noop}password"),
+          "alice@example.com",
+          true,
+          OffsetDateTime.now(ZoneOffset.UTC),
+          OffsetDateTime.now(ZoneOffset.UTC),
+          RoleSet.EMPTY);
+
+  AccessTokenServiceTests() {
+    when(revokedTokenChecker.issuedAtFor(anyString(), any())).thenAnswer(i -> i.getArgument(1));
+  }
+
+  @Test
+  void acceptsIssuedToken() {
+    var issued = service.issue(user);
+
+    assertThat(service.verify(issued.value()))
+        .isInstanceOfSatisfying(
+            VerifyResult.Valid.class,
+            valid -> {
+              assertThat(valid.token().jti()).isEqualTo(issued.token().jti());
+              assertThat(valid.token().username()).isEqualTo("alice");
+            });
+  }
+
+  @Test
+  void rejectsTamperedSignature() {
+    var value = service.issue(user).value();
+    var signatureStart = value.lastIndexOf('.') + 1;
+    var flipped = value.charAt(signatureStart) == 'A' ? 'B' : 'A';
+    var tampered =
+        value.substring(0, signatureStart) + flipped + value.substring(signatureStart + 1);
+
+    assertThat(service.verify(tampered)).isEqualTo(new VerifyResult.Invalid("Bad signature"));
+  }
+
+  @Test
+  void rejectsTamperedClaims() {
+    var parts = parts(service.issue(user).value());
+    var claims =
+        encode("{\"jti\":\"x\",\"sub\":\"admin\",\"roles\":[\"ROLE_ADMIN\"],\"exp\":9999999999}");
+
+    assertThat(service.verify(parts[0] + "." + claims + "." + parts[2]))
+        .isEqualTo(new VerifyResult.Invalid("Bad signature"));
+  }
+
+  @Test
+  void rejectsTokenSignedWithOtherKey() {
+    var other =
+        new AccessTokenService(
+            revokedTokenChecker,
+            new ObjectMapper(),
+            AuthMode.TOKEN,
+            Duration.ofMinutes(15),
+            "fedcba9876543210fedcba9876543210");
+
+    assertThat(service.verify(other.issue(user).value()))
+        .isEqualTo(new VerifyResult.Invalid("Bad signature"));
+  }
+
+  @Test
+  void rejectsOtherAlgorithms() {
+    var parts = parts(service.issue(user).value());
+    for (var header :
+        new String[] {
+          "{\"alg\":\"none\",\"typ\":\"JWT\"}",
+          "{\"alg\":\"HS512\",\"typ\":\"JWT\"}",
+          "{\"typ\":\"JWT\",\"alg\":\"HS256\"}"
+        }) {
+      // 署名はそのままでも、ヘッダーを変えたら受け付けない
+      assertThat(service.verify(encode(header) + "." + parts[1] + "." + parts[2]))
+          .isEqualTo(new VerifyResult.Invalid("Unsupported header"));
+    }
+    assertThat(service.verify(encode("{\"alg\":\"none\",\"typ\":\"JWT\"}") + "." + parts[1] + "."))
+        .isEqualTo(new VerifyResult.Invalid("Unsupported header"));
+  }
+
+  @Test
+  void rejectsMalformedToken() {
+    var value = service.issue(user).value();
+
+    assertThat(service.verify("not-a-token"))
+        .isEqualTo(new VerifyResult.Invalid("Malformed token"));
+    assertThat(service.verify(value + ".extra"))
+        .isEqualTo(new VerifyResult.Invalid("Malformed token"));
+  }
+
+  @Test
+  void rejectsExpiredToken() {
+    var expired = newService(Duration.ofSeconds(-1)).issue(user).value();
+
+    assertThat(service.verify(expired)).isEqualTo(new VerifyResult.Invalid("Expired"));
+  }
+
+  @Test
+  void rejectsRevokedJti() {
+    var issued = service.issue(user);
+    when(revokedTokenChecker.isRevoked(issued.token().jti())).thenReturn(true);
+
+    assertThat(service.verify(issued.value())).isEqualTo(new VerifyResult.Revoked());
+  }
+
+  @Test
+  void rejectsTokenIssuedBeforeCutoff() {
+    var issued = service.issue(user);
+    // トークンのiatは秒単位
+    var issuedAt = issued.token().issuedAt().truncatedTo(ChronoUnit.SECONDS);
+    when(revokedTokenChecker.isIssuedBeforeCutoff("alice", issuedAt)).thenReturn(true);
+
+    assertThat(service.verify(issued.value())).isEqualTo(new VerifyResult.Revoked());
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  private AccessTokenService newService(Duration ttl) {
+    return new AccessTokenService(
+        revokedTokenChecker, new ObjectMapper(), AuthMode.TOKEN, ttl, SECRET);
+  }
+
+  /** ヘッダー・クレーム・署名 */
+  private static String[] parts(String token) {
+    int first = token.indexOf('.');
+    int second = token.indexOf('.', first + 1);
+    return new String[] {
+      token.substring(0, first), token.substring(first + 1, second), token.substring(second + 1)
+    };
+  }
+
+  private static String encode(String json) {
+    return ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,77 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.demo.crosscutting.BatchLoader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class BatchLoaderTests {
+
+  @Test
+  void loadsConcurrentKeysInOneBatch() throws Exception {
+    var batches = Collections.synchronizedList(new ArrayList<Set<String>>());
+    var loader =
+        new BatchLoader<String, String>(
+            keys -> {
+              batches.add(Set.copyOf(keys));
+              return keys.stream()
+                  .filter(k -> !k.equals("missing"))
+                  .collect(Collectors.toMap(k -> k, String::toUpperCase));
+            },
+            Duration.ofMillis(200),
+            100);
+
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      var a = executor.submit(() -> loader.load("a"));
+      var b = executor.submit(() -> loader.load("b"));
+      var missing = executor.submit(() -> loader.load("missing"));
+
+      assertThat(a.get()).contains("A");
+      assertThat(b.get()).contains("B");
+      assertThat(missing.get()).isEmpty();
+    }
+    assertThat(batches).containsExactly(Set.of("a", "b", "missing"));
+  }
+
+  @Test
+  void errorCompletesAllWaiters() throws Exception {
+    var loader =
+        new BatchLoader<String, String>(
+            keys -> {
+              throw new StackOverflowError();
+            },
+            Duration.ofMillis(200),
+            100);
+
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      var futures = new ArrayList<Future<Optional<String>>>();
+      for (var key : List.of("a", "b", "c")) {
+        futures.add(executor.submit(() -> loader.load(key)));
+      }
+      // 窓を読んだスレッドだけでなく、待っているスレッドにもErrorが届く
+      for (var future : futures) {
+        assertThatThrownBy(future::get).hasCauseInstanceOf(StackOverflowError.class);
+      }
+    }
+  }
+
+  @Test
+  void dispatchesWhenBatchIsFull() {
+    var loader =
+        new BatchLoader<String, String>(keys -> Map.of("a", "A"), Duration.ofMinutes(1), 1);
+
+    // 1件で一杯なので窓を待たない
+    assertThat(loader.load("a")).contains("A");
+  }
+}
@@ -0,0 +1,103 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.demo.auth.infra.CompactSessionAttributeCodec;
+import com.example.demo.auth.infra.JavaSessionAttributeCodec;
+import java.time.Instant;
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.User;
+
+class CompactSessionAttributeCodecTests {
+  private static final byte JAVA_SERIALIZATION_MAGIC = (byte) 0xAC;
+
+  private final JavaSessionAttributeCodec java =
+      new JavaSessionAttributeCodec(getClass().getClassLoader());
+  private final CompactSessionAttributeCodec codec = new CompactSessionAttributeCodec(java);
+
+  @Test
+  void roundTripsKnownAndUnknownAuthorities() {
+    var context = context("alice", Instant.ofEpochMilli(1_700_000_000_123L), "ROLE_USER", "READ");
+    var admin = context("root", null, "ROLE_ADMIN", "ROLE_USER");
+
+    for (var original : List.of(context, admin)) {
+      var bytes = codec.encode(original);
+
+      assertThat(bytes[0]).isNotEqualTo(JAVA_SERIALIZATION_MAGIC);
+      assertThat(codec.decode(bytes)).isEqualTo(original);
+    }
+  }
+
+  @Test
+  void isMuchSmallerThanJavaSerialization() {
+    var context = context("alice", Instant.now(), "ROLE_USER", "READ");
+
+    assertThat(codec.encode(context)).hasSizeLessThan(48);
+    assertThat(java.encode(context)).hasSizeGreaterThan(500);
+  }
+
+  @Test
+  void reusesDecodedAuthorities() {
+    var bytes = codec.encode(context("alice", null, "ROLE_USER"));
+
+    var first = authorities(codec.decode(bytes));
+    var second = authorities(codec.decode(bytes));
+
+    assertThat(second.get(0)).isSameAs(first.get(0));
+  }
+
+  @Test
+  void fallsBackToJavaSerialization() {
+    // プリンシパルがStringでない
+    var userPrincipal =
+        new SecurityContextImpl(
+            UsernamePasswordAuthenticationToken.authenticated(
+                new User("alice", "", List.of()), null, List.of()));
+    // 発行日時以外のdetails
+    var otherDetails = context("alice", null, "ROLE_USER");
+    ((UsernamePasswordAuthenticationToken) otherDetails.getAuthentication()).setDetails("x");
+    // 認証されていない
+    var unauthenticated =
+        new SecurityContextImpl(UsernamePasswordAuthenticationToken.unauthenticated("alice", "pw"));
+
+    for (var value :
+        List.<Object>of("plain string", userPrincipal, otherDetails, unauthenticated)) {
+      var bytes = codec.encode(value);
+
+      assertThat(bytes[0]).isEqualTo(JAVA_SERIALIZATION_MAGIC);
+      assertThat(codec.decode(bytes)).isEqualTo(value);
+    }
+  }
+
+  @Test
+  void decodesJavaSerializedContext() {
+    // session.codec.compact=falseで書かれたセッション
+    var context = context("alice", Instant.ofEpochMilli(1_700_000_000_000L), "ROLE_USER");
+
+    assertThat(codec.decode(java.encode(context))).isEqualTo(context);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  private static SecurityContext context(
+      String username, @Nullable Instant issuedAt, String... authorities) {
+    var token =
+        UsernamePasswordAuthenticationToken.authenticated(
+            username,
+            null,
+            List.of(authorities).stream().map(SimpleGrantedAuthority::new).toList());
+    token.setDetails(issuedAt);
+    return new SecurityContextImpl(token);
+  }
+
+  private static List<GrantedAuthority> authorities(Object context) {
+    return List.copyOf(((SecurityContext) context).getAuthentication().getAuthorities());
+  }
+}
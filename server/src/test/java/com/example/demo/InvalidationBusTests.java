@@ -0,0 +1,122 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import com.example.demo.crosscutting.InvalidationBus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class InvalidationBusTests {
+
+  @Autowired InvalidationBus invalidationBus;
+  @Autowired DSLContext dsl;
+  @Autowired DataSourceProperties dataSourceProperties;
+  @Autowired ObjectProvider<JdbcConnectionDetails> connectionDetails;
+  @Autowired ObjectMapper objectMapper;
+
+  @Test
+  void receivesInvalidationFromOtherNode() throws Exception {
+    var received = new CompletableFuture<Set<String>>();
+    invalidationBus.subscribe(
+        "test",
+        new InvalidationBus.Listener() {
+          @Override
+          public void invalidate(Set<String> keys) {
+            received.complete(keys);
+          }
+
+          @Override
+          public void invalidateAll() {}
+        });
+
+    // 別ノードからの通知を模擬する
+    var payload =
+        """
+        {"node":"other-node","topic":"test","all":false,"keys":["alice","bob"]}""";
+    awaitListening(1);
+    dsl.execute("select pg_notify(?, ?)", InvalidationBus.CHANNEL, payload);
+
+    assertThat(received.get(10, TimeUnit.SECONDS)).containsExactlyInAnyOrder("alice", "bob");
+  }
+
+  @Test
+  void ignoresOwnNotifications() throws Exception {
+    var received = new LinkedBlockingQueue<Set<String>>();
+    invalidationBus.subscribe("own", collectInto(received));
+
+    // 別ノード。自分の通知が実際に送られたことの確認と、後から通知を送るのに使う
+    var otherNode = newBus();
+    var receivedByOther = new LinkedBlockingQueue<Set<String>>();
+    otherNode.subscribe("own", collectInto(receivedByOther));
+    otherNode.start();
+    try {
+      awaitListening(2);
+
+      invalidationBus.publish("own", "alice");
+      assertThat(receivedByOther.poll(10, TimeUnit.SECONDS)).containsExactly("alice");
+
+      // NOTIFYはコミット順に届くので、自分の通知を捨てていなければaliceが先に来る
+      otherNode.publish("own", "bob");
+      assertThat(received.poll(10, TimeUnit.SECONDS)).containsExactly("bob");
+      assertThat(received).isEmpty();
+    } finally {
+      otherNode.stop();
+    }
+  }
+
+  private InvalidationBus newBus() {
+    return new InvalidationBus(
+        dsl,
+        dataSourceProperties,
+        connectionDetails,
+        objectMapper,
+        true,
+        Duration.ofMillis(50),
+        1000);
+  }
+
+  private static InvalidationBus.Listener collectInto(BlockingQueue<Set<String>> queue) {
+    return new InvalidationBus.Listener() {
+      @Override
+      public void invalidate(Set<String> keys) {
+        queue.add(keys);
+      }
+
+      @Override
+      public void invalidateAll() {
+        queue.add(Set.of("*"));
+      }
+    };
+  }
+
+  /** {@code expected} 個の接続がLISTENするまで待つ。来なければ失敗にする */
+  private void awaitListening(int expected) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      var listening =
+          dsl.fetchValue(
+              "select count(*) from pg_stat_activity where query = ?",
+              "LISTEN " + InvalidationBus.CHANNEL);
+      if (listening instanceof Number n && n.intValue() >= expected) {
+        return;
+      }
+      Thread.sleep(100);
+    }
+    fail("Invalidation listener did not start within 10 seconds");
+  }
+}
@@ -0,0 +1,137 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import com.example.demo.auth.infra.RevokedTokenChecker;
+import com.example.demo.auth.repository.RevokedTokenRepository;
+import com.example.demo.crosscutting.InvalidationBus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class RevokedTokenCheckerTests {
+
+  @Autowired RevokedTokenChecker revokedTokenChecker;
+  @Autowired DSLContext dsl;
+
+  @Test
+  void revokeIsVisibleImmediately() {
+    var jti = UUID.randomUUID().toString();
+    revokedTokenChecker.revoke(jti, "test", null);
+
+    assertThat(revokedTokenChecker.isRevoked(jti)).isTrue();
+    assertThat(revokedTokenChecker.isRevoked(UUID.randomUUID().toString())).isFalse();
+  }
+
+  @Test
+  void pollPicksUpRowsCommittedLateWithinOverlap() {
+    revokedTokenChecker.poll();
+    // 前回のポーリングより前に始まり、その後にコミットされたトランザクションの行
+    var jti = insertRevoked(Duration.ofSeconds(5));
+
+    revokedTokenChecker.poll();
+
+    assertThat(revokedTokenChecker.isRevoked(jti)).isTrue();
+  }
+
+  @Test
+  void fullReloadPicksUpRowsCommittedLaterThanOverlap() {
+    revokedTokenChecker.poll();
+    var jti = insertRevoked(Duration.ofMinutes(1));
+
+    revokedTokenChecker.poll();
+    assertThat(revokedTokenChecker.isRevoked(jti)).isFalse();
+
+    revokedTokenChecker.fullReload();
+    assertThat(revokedTokenChecker.isRevoked(jti)).isTrue();
+  }
+
+  @Test
+  void fullReloadSkipsRowsOlderThanRetention() {
+    var jti = insertRevoked(Duration.ofHours(2));
+
+    revokedTokenChecker.fullReload();
+
+    assertThat(revokedTokenChecker.isRevoked(jti)).isFalse();
+  }
+
+  @Test
+  void cutoffRevokesTokensIssuedBefore() {
+    var username = "cutoff-" + UUID.randomUUID();
+    var now = Instant.now();
+
+    revokedTokenChecker.revokeIssuedBefore(username, now);
+
+    assertThat(revokedTokenChecker.isIssuedBeforeCutoff(username, now.minusSeconds(60))).isTrue();
+    // iatは秒単位なので、同じ秒に (変更より前に) 発行したトークンも失効させる
+    var sameSecond = now.truncatedTo(ChronoUnit.SECONDS);
+    assertThat(revokedTokenChecker.isIssuedBeforeCutoff(username, sameSecond)).isTrue();
+    var nextSecond = sameSecond.plusSeconds(1);
+    assertThat(revokedTokenChecker.isIssuedBeforeCutoff(username, nextSecond)).isFalse();
+    assertThat(revokedTokenChecker.isIssuedBeforeCutoff("other", now.minusSeconds(60))).isFalse();
+  }
+
+  @Test
+  void tokensIssuedRightAfterCutoffAreNotRevoked() {
+    var username = "cutoff-" + UUID.randomUUID();
+    var now = Instant.now();
+
+    revokedTokenChecker.revokeIssuedBefore(username, now);
+
+    // 変更直後のログインで発行するトークンは、切り上げた下限に合わせる
+    var issuedAt = revokedTokenChecker.issuedAtFor(username, now);
+    assertThat(issuedAt).isAfterOrEqualTo(now);
+    assertThat(revokedTokenChecker.isIssuedBeforeCutoff(username, issuedAt)).isFalse();
+    var later = now.plusSeconds(5);
+    assertThat(revokedTokenChecker.issuedAtFor(username, later)).isEqualTo(later);
+  }
+
+  @Test
+  void rejectsRetentionShorterThanTokenTtl() {
+    assertThatThrownBy(
+            () ->
+                new RevokedTokenChecker(
+                    mock(RevokedTokenRepository.class),
+                    mock(InvalidationBus.class),
+                    new SimpleMeterRegistry(),
+                    Duration.ofMinutes(10),
+                    Duration.ofHours(1),
+                    Duration.ofMinutes(15)))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void pollPicksUpCutoffsFromOtherNodes() {
+    var username = "cutoff-" + UUID.randomUUID();
+    revokedTokenChecker.poll();
+    dsl.execute(
+        "insert into user_token_cutoffs (username, not_before) values (?, now())", username);
+
+    revokedTokenChecker.poll();
+
+    assertThat(revokedTokenChecker.isIssuedBeforeCutoff(username, Instant.now().minusSeconds(60)))
+        .isTrue();
+  }
+
+  /** {@code age} だけ前に失効した行を、今コミットする */
+  private String insertRevoked(Duration age) {
+    var jti = UUID.randomUUID().toString();
+    dsl.execute(
+        "insert into revoked_tokens (id, jti, revoked_at) values (?, ?, now() - ?::interval)",
+        UUID.randomUUID(),
+        jti,
+        age.toSeconds() + " seconds");
+    return jti;
+  }
+}
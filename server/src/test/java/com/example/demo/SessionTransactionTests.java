@@ -0,0 +1,53 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.demo.crosscutting.DataSourceConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+/** Spring Session JDBCはsessionのプールだけを使う。domainのプールはログインなどのクエリのために空けておく */
+@Import(TestcontainersConfiguration.class)
+// 計測中にdomainのプールを使う定期処理を止める
+@SpringBootTest(properties = "auth.revoked-tokens.poll-interval=1h")
+class SessionTransactionTests {
+
+  @Autowired SessionRepository<? extends Session> sessionRepository;
+  @Autowired MeterRegistry meterRegistry;
+
+  @Test
+  void sessionSaveTakesNoDomainConnection() {
+    var domain = acquireTimer(DataSourceConfig.DOMAIN_POOL);
+    var session = acquireTimer(DataSourceConfig.SESSION_POOL);
+    long domainBefore = domain.count();
+    long sessionBefore = session.count();
+
+    saveAndDelete(sessionRepository);
+
+    assertThat(domain.count()).isEqualTo(domainBefore);
+    assertThat(session.count()).isGreaterThan(sessionBefore);
+  }
+
+  private static <S extends Session> void saveAndDelete(SessionRepository<S> repository) {
+    var created = repository.createSession();
+    created.setAttribute("name", "value");
+    repository.save(created);
+    // 属性の削除と追加 (複数の文を1トランザクションで)
+    var found = repository.findById(created.getId());
+    assertThat(found).isNotNull();
+    found.removeAttribute("name");
+    found.setAttribute("other", "value");
+    repository.save(found);
+    repository.deleteById(created.getId());
+  }
+
+  private Timer acquireTimer(String pool) {
+    return meterRegistry.get("hikaricp.connections.acquire").tag("pool", pool).timer();
+  }
+}
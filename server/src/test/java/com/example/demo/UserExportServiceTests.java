@@ -0,0 +1,88 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.user.entity.RoleSet;
+import com.example.demo.user.entity.User;
+import com.example.demo.user.repository.UserRepository;
+import com.example.demo.user.service.UserExportService;
+import com.example.demo.user.service.UserExportService.ExportResult;
+import com.example.demo.user.service.UserFileFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.StringWriter;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/** ページの分け方と {@link ExportResult}。DBはモック */
+class UserExportServiceTests {
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final UserExportService service =
+      new UserExportService(
+          userRepository, new ObjectMapper().registerModule(new JavaTimeModule()), 2);
+
+  @Test
+  void readsPagesAfterLastWrittenId() {
+    var users = List.of(user("a"), user("b"), user("c"));
+    when(userRepository.findAfter(isNull(), eq(2))).thenReturn(users.subList(0, 2));
+    when(userRepository.findAfter(users.get(1).getId(), 2)).thenReturn(users.subList(2, 3));
+    var out = new StringWriter();
+
+    var result = service.export(out, UserFileFormat.CSV, null, 0);
+
+    assertThat(result).isEqualTo(new ExportResult(3, users.get(2).getId()));
+    assertThat(out.toString().lines())
+        .hasSize(4)
+        .element(3)
+        .asString()
+        .startsWith(users.get(2).getId() + ",c,");
+  }
+
+  @Test
+  void stopsAtLimit() {
+    var users = List.of(user("a"), user("b"), user("c"));
+    when(userRepository.findAfter(isNull(), eq(2))).thenReturn(users.subList(0, 2));
+    when(userRepository.findAfter(users.get(1).getId(), 1)).thenReturn(users.subList(2, 3));
+
+    var result = service.export(new StringWriter(), UserFileFormat.JSONL, null, 3);
+
+    assertThat(result).isEqualTo(new ExportResult(3, users.get(2).getId()));
+  }
+
+  @Test
+  void lastIdIsNullWhenNothingWritten() {
+    var after = UUID.randomUUID();
+    when(userRepository.findAfter(any(), anyInt())).thenReturn(List.of());
+
+    var result = service.export(new StringWriter(), UserFileFormat.JSONL, after, 0);
+
+    // 続きがないので、afterをそのまま返さない
+    assertThat(result).isEqualTo(new ExportResult(0, null));
+    verify(userRepository).findAfter(after, 2);
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  private static User user(String username) {
+    var now = OffsetDateTime.now(ZoneOffset.UTC);
+    return User.unsafeOf(
+        UUID.randomUUID(),
+        username,
+        User.PasswordHash.unsafeOf("{noop}password"),
+        username + "@example.com",
+        true,
+        now,
+        now,
+        RoleSet.EMPTY);
+  }
+}
@@ -0,0 +1,133 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.demo.user.service.UserFileFormat;
+import com.example.demo.user.service.UserImportReader;
+import com.example.demo.user.service.UserImportReader.Entry;
+import com.example.demo.user.service.UserImportReader.Invalid;
+import com.example.demo.user.service.UserImportReader.InvalidInputException;
+import com.example.demo.user.service.UserImportReader.Row;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** CSV/JSONLの解釈。DBもSpringも使わない */
+class UserImportReaderTests {
+
+  @Test
+  void readsQuotedCsvValues() throws IOException {
+    var entries =
+        read(
+            UserFileFormat.CSV,
+            """
+            username,password,email
+            alice,"pa,ss","alice@example.com"
+            bob,"say ""hi""\",bob@example.com
+            carol,"",carol@example.com
+            """);
+
+    assertThat(entries)
+        .containsExactly(
+            new Row(2, "alice", "pa,ss", "alice@example.com", null),
+            new Row(3, "bob", "say \"hi\"", "bob@example.com", null),
+            new Invalid(4, "Password is required"));
+  }
+
+  @Test
+  void reportsMalformedCsvRows() throws IOException {
+    var entries =
+        read(
+            UserFileFormat.CSV,
+            """
+            username,password,email
+            alice,"unterminated,alice@example.com
+            bob,secret
+            """);
+
+    assertThat(entries)
+        .containsExactly(
+            new Invalid(2, "Malformed CSV"), new Invalid(3, "Expected 3 columns but got 2"));
+  }
+
+  @Test
+  void readsHeaderInAnyOrder() throws IOException {
+    var entries =
+        read(
+            UserFileFormat.CSV,
+            """
+            Email, ROLE ,Username,Password
+
+            alice@example.com,ROLE_ADMIN,alice,secret
+            bob@example.com,,bob,secret
+            """);
+
+    // 空行も行番号に数える
+    assertThat(entries)
+        .containsExactly(
+            new Row(3, "alice", "secret", "alice@example.com", "ROLE_ADMIN"),
+            new Row(4, "bob", "secret", "bob@example.com", null));
+  }
+
+  @Test
+  void skipsByteOrderMark() throws IOException {
+    var entries =
+        read(UserFileFormat.CSV, "\uFEFFusername,password,email\nalice,secret,alice@example.com\n");
+
+    assertThat(entries).containsExactly(new Row(2, "alice", "secret", "alice@example.com", null));
+  }
+
+  @Test
+  void rejectsInvalidHeader() {
+    for (var header :
+        List.of(
+            "username,password,mail",
+            "username,password",
+            "username,password,email,email",
+            "username,\"password,email")) {
+      assertThatThrownBy(() -> read(UserFileFormat.CSV, header + "\nalice,secret,a@example.com\n"))
+          .as(header)
+          .isInstanceOf(InvalidInputException.class);
+    }
+  }
+
+  @Test
+  void reportsJsonlErrors() throws IOException {
+    var entries =
+        read(
+            UserFileFormat.JSONL,
+            """
+            {"username":"alice","password":"secret","email":"alice@example.com","role":"ROLE_ADMIN"}
+            {"username":"bob",
+
+            ["not", "an", "object"]
+            {"username":"carol","password":"secret","email":null}
+            {"password":"secret","email":"dave@example.com"}
+            """);
+
+    assertThat(entries)
+        .containsExactly(
+            new Row(1, "alice", "secret", "alice@example.com", "ROLE_ADMIN"),
+            new Invalid(2, "Malformed JSON"),
+            new Invalid(4, "Expected a JSON object"),
+            new Invalid(5, "Email is required"),
+            new Invalid(6, "Username is required"));
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  private static List<Entry> read(UserFileFormat format, String input) throws IOException {
+    var entries = new ArrayList<Entry>();
+    try (var reader = new UserImportReader(new StringReader(input), format, new ObjectMapper())) {
+      Entry entry;
+      while ((entry = reader.next()) != null) {
+        entries.add(entry);
+      }
+    }
+    return entries;
+  }
+}
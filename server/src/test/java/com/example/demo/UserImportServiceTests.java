@@ -0,0 +1,135 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.demo.user.service.UserFileFormat;
+import com.example.demo.user.service.UserImportService;
+import com.example.demo.user.service.UserImportService.BusyException;
+import com.example.demo.user.service.UserImportService.ImportResult;
+import com.example.demo.user.service.UserImportService.RowError;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "user.import.batch-size=2")
+class UserImportServiceTests {
+
+  @Autowired UserImportService userImportService;
+
+  @Test
+  void resumesAfterLastCommittedBatch() {
+    var prefix = "import-" + UUID.randomUUID().toString().substring(0, 8);
+    var job = prefix + "-job";
+    // 3行目はメール、6行目はパスワードがない
+    var input =
+        """
+        username,password,email
+        %1$s-1,secret,%1$s-1@example.com
+        %1$s-bad,secret,
+        %1$s-3,secret,%1$s-3@example.com
+        %1$s-4,secret,%1$s-4@example.com
+        %1$s-bad2,,%1$s-bad2@example.com
+        """
+            .formatted(prefix);
+
+    // 1回目: 2〜3行目のバッチをコミットした後、4行目まで読んだところで入力が途切れる
+    var firstErrors = new ArrayList<RowError>();
+    var truncated = new FailingReader(input.substring(0, input.indexOf(prefix + "-4,")));
+    assertThatThrownBy(
+            () ->
+                userImportService.importUsers(truncated, UserFileFormat.CSV, job, firstErrors::add))
+        .isInstanceOf(UncheckedIOException.class);
+    assertThat(firstErrors).extracting(RowError::line).containsExactly(3L);
+
+    // 2回目: 3行目の次から。コミット済みの3行目のエラーは報告しない
+    var secondErrors = new ArrayList<RowError>();
+    var result =
+        userImportService.importUsers(
+            new StringReader(input), UserFileFormat.CSV, job, secondErrors::add);
+
+    assertThat(result).isEqualTo(new ImportResult(3, 2, 1, 6));
+    assertThat(secondErrors).extracting(RowError::line).containsExactly(6L);
+  }
+
+  @Test
+  void rejectsConcurrentImport() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    // ヘッダーを読むところで止まる。再開したらヘッダーだけ返して終わる
+    var blocking =
+        new Reader() {
+          private final StringReader header = new StringReader("username,password,email\n");
+
+          @Override
+          public int read(char[] buf, int off, int len) throws IOException {
+            started.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              throw new InterruptedIOException();
+            }
+            return header.read(buf, off, len);
+          }
+
+          @Override
+          public void close() {}
+        };
+
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      var first =
+          executor.submit(
+              () -> userImportService.importUsers(blocking, UserFileFormat.CSV, null, e -> {}));
+      started.await();
+
+      // user.import.max-concurrent=1
+      assertThatThrownBy(() -> importHeaderOnly()).isInstanceOf(BusyException.class);
+
+      release.countDown();
+      first.get();
+    }
+    // 終わったら受け付ける
+    assertThat(importHeaderOnly()).isEqualTo(new ImportResult(0, 0, 0, 0));
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  private ImportResult importHeaderOnly() {
+    return userImportService.importUsers(
+        new StringReader("username,password,email\n"), UserFileFormat.CSV, null, e -> {});
+  }
+
+  /** {@code text} を読み終えたら、終わりではなくIOExceptionを投げる (接続が切れた) */
+  private static final class FailingReader extends Reader {
+    private final StringReader delegate;
+
+    FailingReader(String text) {
+      this.delegate = new StringReader(text);
+    }
+
+    @Override
+    public int read(char[] buf, int off, int len) throws IOException {
+      int n = delegate.read(buf, off, len);
+      if (n < 0) {
+        throw new IOException("Connection reset");
+      }
+      return n;
+    }
+
+    @Override
+    public void close() {
+      delegate.close();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.demo.user.entity.User;
+import com.example.demo.user.repository.UserRepository;
+import com.example.demo.user.repository.UserRepository.Cursor;
+import com.example.demo.user.service.UserService;
+import com.example.demo.user.service.UserService.CreateUserResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class UserSearchTests {
+
+  @Autowired UserService userService;
+  @Autowired UserRepository userRepository;
+
+  @Test
+  void pagesThroughUsernameMatchesThenEmailMatches() {
+    var token = "search-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    var prefix = token + "m";
+    // ユーザー名で一致
+    create(token + "m1", token + "m1@example.com");
+    create(token + "m2", token + "m2@example.com");
+    create(token + "m3", token + "m3@example.com");
+    // ユーザー名でもメールアドレスでも一致 (ユーザー名の側で1回だけ返す)
+    create(token + "m4", prefix + "-0@example.com");
+    // メールアドレスだけで一致。ユーザー名の順とメールアドレスの順が違う
+    create(token + "a1", prefix + "-a1@example.com");
+    create(token + "b1", prefix + "-y@example.com");
+    create(token + "y1", prefix + "-b@example.com");
+    create(token + "z1", prefix + "-z1@example.com");
+    // 一致しない
+    create(token + "a2", token + "a2@example.com");
+    create(token + "z2", token + "z2@example.com");
+    var expected =
+        List.of(
+            token + "m1",
+            token + "m2",
+            token + "m3",
+            token + "m4",
+            token + "a1",
+            token + "y1",
+            token + "b1",
+            token + "z1");
+
+    // ページの境目がユーザー名の側・メールアドレスの側・その間のどこにあっても、漏れも重複もない
+    for (int limit = 1; limit <= expected.size() + 1; limit++) {
+      assertThat(walk(prefix, limit)).as("limit=%d", limit).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void rejectsEmailCursorWithoutPrefix() {
+    var cursor = new Cursor(Cursor.Key.EMAIL, "a@example.com", UUID.randomUUID());
+
+    assertThat(Cursor.decode(cursor.encode())).isEqualTo(cursor);
+    assertThatThrownBy(() -> userRepository.search(null, cursor, 10))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void ordersByUsernameBytes() {
+    var token = "search-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    // 照合順序によらず、バイト順 (大文字が先)
+    create(token + "b", token + "b@example.com");
+    create(token + "B", token + "B@example.com");
+    create(token + "a", token + "a@example.com");
+
+    assertThat(walk(token, 2)).containsExactly(token + "B", token + "a", token + "b");
+  }
+
+  // ----------------------------------------------------------------------------------------------
+
+  private void create(String username, String email) {
+    assertThat(userService.createUser(username, "password", email))
+        .isInstanceOf(CreateUserResult.Success.class);
+  }
+
+  private List<String> walk(String prefix, int limit) {
+    var usernames = new ArrayList<String>();
+    @Nullable Cursor after = null;
+    do {
+      var page = userRepository.search(prefix, after, limit);
+      assertThat(page.users()).hasSizeLessThanOrEqualTo(limit);
+      page.users().stream().map(User::getUsername).forEach(usernames::add);
+      after = page.next();
+    } while (after != null);
+    return usernames;
+  }
+}